@@ -0,0 +1,78 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BubblesRegistryBenchmark {
+    @Param({ "8", "64" })
+    public int bubbleCount;
+
+    private BubblesRegistry<Object> registry;
+    private int[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        registry = new BubblesRegistry<>();
+        ids = new int[bubbleCount];
+        for (int index = 0; index < bubbleCount; index++) {
+            ids[index] = registry.register(new Object());
+        }
+    }
+
+    @Benchmark
+    public int registerAndUnregister() {
+        Object bubble = new Object();
+        int id = registry.register(bubble);
+        registry.unregister(id);
+        return id;
+    }
+
+    @Benchmark
+    public boolean registerAndUnregisterByItem() {
+        Object bubble = new Object();
+        registry.register(bubble);
+        return registry.unregister(bubble);
+    }
+
+    @Benchmark
+    public boolean bringToFront() {
+        next = (next + 1) % bubbleCount;
+        return registry.bringToFront(ids[next]);
+    }
+}
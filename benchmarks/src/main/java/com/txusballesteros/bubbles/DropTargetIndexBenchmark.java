@@ -0,0 +1,85 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DropTargetIndexBenchmark {
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+    private static final int TARGET_SIZE = 160;
+    private static final int PROBE_COUNT = 1024;
+
+    @Param({ "1", "8", "32" })
+    public int targetCount;
+
+    private DropTargetIndex index;
+    private int[] probesX;
+    private int[] probesY;
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new DropTargetIndex();
+        for (int target = 0; target < targetCount; target++) {
+            int left = random.nextInt(SCREEN_WIDTH - TARGET_SIZE);
+            int top = random.nextInt(SCREEN_HEIGHT - TARGET_SIZE);
+            index.add(left, top, left + TARGET_SIZE, top + TARGET_SIZE);
+        }
+        index.build();
+        probesX = new int[PROBE_COUNT];
+        probesY = new int[PROBE_COUNT];
+        for (int sample = 0; sample < PROBE_COUNT; sample++) {
+            probesX[sample] = random.nextInt(SCREEN_WIDTH);
+            probesY[sample] = random.nextInt(SCREEN_HEIGHT);
+        }
+    }
+
+    @Benchmark
+    public int find() {
+        probe = (probe + 1) & (PROBE_COUNT - 1);
+        return index.find(probesX[probe], probesY[probe]);
+    }
+
+    @Benchmark
+    public int build() {
+        index.build();
+        return index.size();
+    }
+}
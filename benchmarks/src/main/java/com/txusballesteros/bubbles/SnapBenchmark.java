@@ -0,0 +1,88 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapBenchmark {
+    private static final int MAX_X = 960;
+    private static final int MAX_Y = 1800;
+    private static final long FRAME_INTERVAL_IN_NANOS = 16666667L;
+    private static final int FRAME_COUNT = 30;
+
+    private final SpringMotion springX = new SpringMotion();
+    private final SpringMotion springY = new SpringMotion();
+    private final FlingMotion fling = new FlingMotion();
+    private int release;
+
+    @Benchmark
+    public int snapToWall() {
+        release = (release + 1) & 1023;
+        int x = (release * 7) % MAX_X;
+        int y = (release * 13) % MAX_Y;
+        float velocityX = (release & 1) == 0 ? 2500 : -2500;
+        float velocityY = 800;
+        fling.start(x, velocityX, 0);
+        int wallX = BubblesReflow.nearestWall(Math.round(fling.getFinalPosition()), MAX_X);
+        fling.start(y, velocityY, 0);
+        int landingY = BubblesReflow.clamp(Math.round(fling.getFinalPosition()), 0, MAX_Y);
+        springX.startWithoutOvershoot(x, wallX, velocityX, 0);
+        springY.startWithoutOvershoot(y, landingY, velocityY, 0);
+        return wallX + landingY;
+    }
+
+    @Benchmark
+    public int springFrames() {
+        springX.start(100, MAX_X, 3000, 0);
+        springY.start(400, 900, 800, 0);
+        int checksum = 0;
+        for (int frame = 1; frame <= FRAME_COUNT; frame++) {
+            long frameTime = frame * FRAME_INTERVAL_IN_NANOS;
+            checksum += Math.round(springX.getPosition(frameTime)) + Math.round(springY.getPosition(frameTime));
+            if (springX.isFinished(frameTime) && springY.isFinished(frameTime)) {
+                break;
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int reflow() {
+        release = (release + 1) & 1023;
+        int x = BubblesReflow.mapPosition(release, MAX_X, 1800);
+        int y = BubblesReflow.mapPosition(release, MAX_Y, 960);
+        return x + y;
+    }
+}
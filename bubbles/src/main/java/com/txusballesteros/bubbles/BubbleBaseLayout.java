@@ -24,15 +24,29 @@
  */
 package com.txusballesteros.bubbles;
 
+import android.animation.Animator;
+import android.animation.AnimatorInflater;
+import android.animation.AnimatorListenerAdapter;
 import android.content.Context;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.View;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
 
+import java.util.HashMap;
+import java.util.Map;
+
 class BubbleBaseLayout extends FrameLayout {
     private WindowManager windowManager;
     private WindowManager.LayoutParams params;
     private BubblesLayoutCoordinator layoutCoordinator;
+    private BubblesFrameClock frameClock;
+    private BubblesAnimatorCache animatorCache;
+    private BubblesMetrics metrics;
+    private SparseArray<Animator> animators = new SparseArray<>();
+    private boolean layerPromotionEnabled = true;
+    private final Map<View, LayerPromotion> layerPromotions = new HashMap<>();
 
     void setLayoutCoordinator(BubblesLayoutCoordinator layoutCoordinator) {
         this.layoutCoordinator = layoutCoordinator;
@@ -58,6 +72,140 @@ class BubbleBaseLayout extends FrameLayout {
         return this.params;
     }
 
+    void setFrameClock(BubblesFrameClock frameClock) {
+        this.frameClock = frameClock;
+    }
+
+    BubblesFrameClock getFrameClock() {
+        return frameClock;
+    }
+
+    void setMetrics(BubblesMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    BubblesMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setAnimatorCache(BubblesAnimatorCache animatorCache) {
+        this.animatorCache = animatorCache;
+    }
+
+    void playAnimation(int animatorResourceId, View target) {
+        playAnimation(animatorResourceId, target, true);
+    }
+
+    void playAnimation(int animatorResourceId, View target, boolean promoteTarget) {
+        if (!isInEditMode()) {
+            Animator animator = animators.get(animatorResourceId);
+            if (animator == null) {
+                if (animatorCache != null) {
+                    animator = animatorCache.obtain(animatorResourceId);
+                } else {
+                    animator = AnimatorInflater.loadAnimator(getContext(), animatorResourceId);
+                }
+                animator.setTarget(target);
+                if (promoteTarget) {
+                    animator.addListener(createLayerAnimatorListener(target));
+                }
+                animators.put(animatorResourceId, animator);
+            } else if (animator.isStarted()) {
+                animator.cancel();
+            }
+            animator.start();
+        }
+    }
+
+    void releaseAnimators() {
+        for (int index = 0; index < animators.size(); index++) {
+            animators.valueAt(index).cancel();
+        }
+        animators.clear();
+    }
+
+    void releaseReferences() {
+        releaseAnimators();
+        layoutCoordinator = null;
+        windowManager = null;
+        frameClock = null;
+        metrics = null;
+        animatorCache = null;
+    }
+
+    void setLayerPromotionEnabled(boolean enabled) {
+        if (!enabled) {
+            resetLayer();
+        }
+        this.layerPromotionEnabled = enabled;
+    }
+
+    void promoteLayer() {
+        promoteLayer(this);
+    }
+
+    void demoteLayer() {
+        demoteLayer(this);
+    }
+
+    void resetLayer() {
+        for (Map.Entry<View, LayerPromotion> entry : layerPromotions.entrySet()) {
+            restoreLayer(entry.getKey(), entry.getValue());
+        }
+        layerPromotions.clear();
+    }
+
+    private void promoteLayer(View view) {
+        if (layerPromotionEnabled && view != null) {
+            LayerPromotion promotion = layerPromotions.get(view);
+            if (promotion == null) {
+                promotion = new LayerPromotion(view.getLayerType());
+                layerPromotions.put(view, promotion);
+                if (promotion.demotedLayerType != LAYER_TYPE_HARDWARE) {
+                    view.setLayerType(LAYER_TYPE_HARDWARE, null);
+                }
+            }
+            promotion.count++;
+        }
+    }
+
+    private void demoteLayer(View view) {
+        LayerPromotion promotion = layerPromotions.get(view);
+        if (promotion != null && --promotion.count == 0) {
+            layerPromotions.remove(view);
+            restoreLayer(view, promotion);
+        }
+    }
+
+    private void restoreLayer(View view, LayerPromotion promotion) {
+        if (promotion.demotedLayerType != LAYER_TYPE_HARDWARE) {
+            view.setLayerType(promotion.demotedLayerType, null);
+        }
+    }
+
+    private Animator.AnimatorListener createLayerAnimatorListener(final View target) {
+        return new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationStart(Animator animation) {
+                promoteLayer(target);
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                demoteLayer(target);
+            }
+        };
+    }
+
+    private static final class LayerPromotion {
+        private final int demotedLayerType;
+        private int count = 0;
+
+        private LayerPromotion(int demotedLayerType) {
+            this.demotedLayerType = demotedLayerType;
+        }
+    }
+
     public BubbleBaseLayout(Context context) {
         super(context);
     }
@@ -24,31 +24,57 @@
  */
 package com.txusballesteros.bubbles;
 
-import android.animation.AnimatorInflater;
-import android.animation.AnimatorSet;
 import android.content.Context;
-import android.graphics.Point;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
-import android.view.Display;
 import android.view.MotionEvent;
-import android.view.WindowManager;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
 
 public class BubbleLayout extends BubbleBaseLayout {
+    private static final float MAX_PREDICTION_DISTANCE_IN_DP = 48;
     private float initialTouchX;
     private float initialTouchY;
     private int initialX;
     private int initialY;
     private OnBubbleRemoveListener onBubbleRemoveListener;
     private OnBubbleClickListener onBubbleClickListener;
-    private static final int TOUCH_TIME_THRESHOLD = 150;
-    private long lastTouchDown;
+    private OnBubbleLongClickListener onBubbleLongClickListener;
+    private int touchSlop;
+    private boolean dragging = false;
+    private boolean longPressed = false;
+    private final Runnable longPressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            longPressed = true;
+            if (onBubbleLongClickListener != null) {
+                onBubbleLongClickListener.onBubbleLongClick(BubbleLayout.this);
+            }
+        }
+    };
     private MoveAnimator animator;
-    private int width;
-    private WindowManager windowManager;
+    private BubblesDisplayGeometry displayGeometry;
     private boolean shouldStickToWall = true;
+    private boolean hardwareLayersEnabled = true;
+    private boolean defaultHardwareLayersEnabled = true;
+    private BubblesRenderer renderer;
+    private BubblesLayoutScheduler layoutScheduler;
+    private boolean layoutPending = false;
+    private int layoutResourceId;
+    private boolean showAnimationSkipped = false;
+    private long touchEventTime = 0;
+    private boolean touching = false;
+    private boolean inMotion = false;
+    private boolean layerPromoted = false;
+    private boolean touchable = true;
+    private VelocityTracker velocityTracker;
+    private final FlingMotion flingMotion = new FlingMotion();
+    private int minimumFlingVelocity;
+    private int maximumFlingVelocity;
+    private BubblesTouchPredictor touchPredictor;
+    private BubblesDocking docking;
+    private BubblesStack stack;
+    private int dockedEdge = BubblesDocking.NO_EDGE;
+    private int dockedSlot = BubblesDocking.NO_SLOT;
 
     public void setOnBubbleRemoveListener(OnBubbleRemoveListener listener) {
         onBubbleRemoveListener = listener;
@@ -58,27 +84,180 @@ public class BubbleLayout extends BubbleBaseLayout {
         onBubbleClickListener = listener;
     }
 
+    public void setOnBubbleLongClickListener(OnBubbleLongClickListener listener) {
+        onBubbleLongClickListener = listener;
+    }
+
     public BubbleLayout(Context context) {
         super(context);
         animator = new MoveAnimator();
-        windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         initializeView();
     }
 
     public BubbleLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
         animator = new MoveAnimator();
-        windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         initializeView();
     }
 
     public BubbleLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         animator = new MoveAnimator();
-        windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         initializeView();
     }
 
+    void setRenderer(BubblesRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    void setDisplayGeometry(BubblesDisplayGeometry displayGeometry) {
+        this.displayGeometry = displayGeometry;
+    }
+
+    void setLayoutResourceId(int layoutResourceId) {
+        this.layoutResourceId = layoutResourceId;
+    }
+
+    int getLayoutResourceId() {
+        return layoutResourceId;
+    }
+
+    void resetState() {
+        touching = false;
+        animator.stop();
+        releaseVelocityTracker();
+        resetLayer();
+        inMotion = false;
+        layerPromoted = false;
+        touchable = true;
+        layoutPending = false;
+        removeCallbacks(longPressRunnable);
+        dragging = false;
+        longPressed = false;
+        onBubbleClickListener = null;
+        onBubbleLongClickListener = null;
+        onBubbleRemoveListener = null;
+        shouldStickToWall = true;
+        hardwareLayersEnabled = true;
+        setScaleX(1f);
+        setScaleY(1f);
+        setTranslationX(0f);
+        setTranslationY(0f);
+    }
+
+    @Override
+    void releaseReferences() {
+        animator.stop();
+        releaseVelocityTracker();
+        super.releaseReferences();
+        layoutPending = false;
+        renderer = null;
+        displayGeometry = null;
+        docking = null;
+        stack = null;
+        dockedEdge = BubblesDocking.NO_EDGE;
+        dockedSlot = BubblesDocking.NO_SLOT;
+        layoutScheduler = null;
+    }
+
+    void setLayoutScheduler(BubblesLayoutScheduler layoutScheduler) {
+        this.layoutScheduler = layoutScheduler;
+    }
+
+    void setLayoutPending(boolean pending) {
+        this.layoutPending = pending;
+    }
+
+    boolean isLayoutPending() {
+        return layoutPending;
+    }
+
+    void setStack(BubblesStack stack) {
+        this.stack = stack;
+    }
+
+    void setTouchable(boolean touchable) {
+        this.touchable = touchable;
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        return touchable && super.dispatchTouchEvent(event);
+    }
+
+    void setDocking(BubblesDocking docking) {
+        this.docking = docking;
+    }
+
+    int getDockedEdge() {
+        return dockedEdge;
+    }
+
+    int getDockedSlot() {
+        return dockedSlot;
+    }
+
+    void setDockedSlot(int edge, int slot) {
+        this.dockedEdge = edge;
+        this.dockedSlot = slot;
+    }
+
+    void setTouchPredictionEnabled(boolean enabled, float refreshRate) {
+        if (!enabled) {
+            touchPredictor = null;
+        } else {
+            if (touchPredictor == null) {
+                float density = getResources().getDisplayMetrics().density;
+                touchPredictor = new BubblesTouchPredictor(MAX_PREDICTION_DISTANCE_IN_DP * density);
+            }
+            touchPredictor.setRefreshRate(refreshRate);
+        }
+    }
+
+    boolean isIdle() {
+        return !inMotion;
+    }
+
+    boolean isMoveAnimationRunning() {
+        return animator.isRunning();
+    }
+
+    int getMoveDestinationX() {
+        return (int) animator.destinationX;
+    }
+
+    int getMoveDestinationY() {
+        return (int) animator.destinationY;
+    }
+
+    long consumeTouchEventTime() {
+        long eventTime = touchEventTime;
+        touchEventTime = 0;
+        return eventTime;
+    }
+
+    void updateViewLayout() {
+        if (layoutScheduler != null) {
+            layoutScheduler.schedule(this);
+        } else if (renderer != null) {
+            renderer.updateBubble(this);
+        }
+    }
+
+    public void setHardwareLayersEnabled(boolean enabled) {
+        this.hardwareLayersEnabled = enabled;
+        updateLayerPromotionEnabled();
+    }
+
+    void setDefaultHardwareLayersEnabled(boolean enabled) {
+        this.defaultHardwareLayersEnabled = enabled;
+        updateLayerPromotionEnabled();
+    }
+
+    private void updateLayerPromotionEnabled() {
+        setLayerPromotionEnabled(hardwareLayersEnabled && defaultHardwareLayersEnabled);
+    }
+
     public void setShouldStickToWall(boolean shouldStick) {
         this.shouldStickToWall = shouldStick;
     }
@@ -91,12 +270,24 @@ public class BubbleLayout extends BubbleBaseLayout {
 
     private void initializeView() {
         setClickable(true);
+        ViewConfiguration configuration = ViewConfiguration.get(getContext());
+        touchSlop = configuration.getScaledTouchSlop();
+        minimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+    }
+
+    void skipNextShowAnimation() {
+        showAnimationSkipped = true;
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        playAnimation();
+        if (showAnimationSkipped) {
+            showAnimationSkipped = false;
+        } else {
+            playAnimation();
+        }
     }
 
     @Override
@@ -109,31 +300,113 @@ public class BubbleLayout extends BubbleBaseLayout {
                     initialTouchX = event.getRawX();
                     initialTouchY = event.getRawY();
                     playAnimationClickDown();
-                    lastTouchDown = System.currentTimeMillis();
-                    updateSize();
+                    touching = true;
+                    finishDrag();
+                    longPressed = false;
+                    postDelayed(longPressRunnable, ViewConfiguration.getLongPressTimeout());
+                    if (velocityTracker == null) {
+                        velocityTracker = VelocityTracker.obtain();
+                    } else {
+                        velocityTracker.clear();
+                    }
+                    trackMovement(event);
+                    if (touchPredictor != null) {
+                        touchPredictor.reset();
+                        touchPredictor.addSample(event.getRawX(), event.getRawY(), event.getEventTime());
+                    }
+                    if (getLayoutCoordinator() != null) {
+                        getLayoutCoordinator().notifyBubbleTouched(this);
+                    }
                     animator.stop();
+                    updateMotionState();
                     break;
                 case MotionEvent.ACTION_MOVE:
-                    int x = initialX + (int)(event.getRawX() - initialTouchX);
-                    int y = initialY + (int)(event.getRawY() - initialTouchY);
-                    getViewParams().x = x;
-                    getViewParams().y = y;
-                    getWindowManager().updateViewLayout(this, getViewParams());
-                    if (getLayoutCoordinator() != null) {
-                        getLayoutCoordinator().notifyBubblePositionChanged(this, x, y);
+                    beginMetricsSection("Bubbles#move");
+                    trackMovement(event);
+                    float deltaX = event.getRawX() - initialTouchX;
+                    float deltaY = event.getRawY() - initialTouchY;
+                    if (!dragging && Math.hypot(deltaX, deltaY) > touchSlop) {
+                        dragging = true;
+                        removeCallbacks(longPressRunnable);
+                        if (docking != null) {
+                            docking.undock(this);
+                        }
+                        if (renderer != null) {
+                            renderer.onBubbleDragStarted(this);
+                        }
+                        updateMotionState();
+                    }
+                    if (!dragging) {
+                        if (touchPredictor != null) {
+                            trackPrediction(event);
+                        }
+                        endMetricsSection();
+                        break;
                     }
+                    if (touchPredictor != null) {
+                        trackPrediction(event);
+                        if (touchPredictor.predict()) {
+                            deltaX = touchPredictor.getPredictedX() - initialTouchX;
+                            deltaY = touchPredictor.getPredictedY() - initialTouchY;
+                        }
+                    }
+                    int x = initialX + (int) deltaX;
+                    int y = initialY + (int) deltaY;
+                    if (getLayoutCoordinator() == null
+                            || !getLayoutCoordinator().notifyBubblePositionChanged(this, x, y)) {
+                        getViewParams().x = x;
+                        getViewParams().y = y;
+                        if (touchEventTime == 0) {
+                            touchEventTime = event.getEventTime();
+                        }
+                        updateViewLayout();
+                    }
+                    endMetricsSection();
                     break;
                 case MotionEvent.ACTION_UP:
-                    goToWall();
+                    touching = false;
+                    removeCallbacks(longPressRunnable);
+                    if (touchPredictor != null) {
+                        touchPredictor.reset();
+                    }
+                    trackMovement(event);
+                    if (dragging) {
+                        float velocityX = 0;
+                        float velocityY = 0;
+                        if (velocityTracker != null) {
+                            velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+                            velocityX = velocityTracker.getXVelocity();
+                            velocityY = velocityTracker.getYVelocity();
+                        }
+                        goToWall(velocityX, velocityY);
+                    }
+                    releaseVelocityTracker();
+                    updateMotionState();
                     if (getLayoutCoordinator() != null) {
                         getLayoutCoordinator().notifyBubbleRelease(this);
                         playAnimationClickUp();
                     }
-                    if (System.currentTimeMillis() - lastTouchDown < TOUCH_TIME_THRESHOLD) {
-                        if (onBubbleClickListener != null) {
-                            onBubbleClickListener.onBubbleClick(this);
-                        }
+                    if (!dragging && !longPressed && onBubbleClickListener != null) {
+                        onBubbleClickListener.onBubbleClick(this);
                     }
+                    finishDrag();
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    touching = false;
+                    removeCallbacks(longPressRunnable);
+                    if (touchPredictor != null) {
+                        touchPredictor.reset();
+                    }
+                    releaseVelocityTracker();
+                    if (dragging) {
+                        goToWall();
+                    }
+                    updateMotionState();
+                    if (getLayoutCoordinator() != null) {
+                        getLayoutCoordinator().notifyBubbleRelease(this);
+                        playAnimationClickUp();
+                    }
+                    finishDrag();
                     break;
             }
         }
@@ -141,40 +414,15 @@ public class BubbleLayout extends BubbleBaseLayout {
     }
 
     private void playAnimation() {
-        if (!isInEditMode()) {
-            AnimatorSet animator = (AnimatorSet) AnimatorInflater
-                    .loadAnimator(getContext(), R.animator.bubble_shown_animator);
-            animator.setTarget(this);
-            animator.start();
-        }
+        playAnimation(R.animator.bubble_shown_animator, this);
     }
 
     private void playAnimationClickDown() {
-        if (!isInEditMode()) {
-            AnimatorSet animator = (AnimatorSet) AnimatorInflater
-                    .loadAnimator(getContext(), R.animator.bubble_down_click_animator);
-            animator.setTarget(this);
-            animator.start();
-        }
+        playAnimation(R.animator.bubble_down_click_animator, this, false);
     }
 
     private void playAnimationClickUp() {
-        if (!isInEditMode()) {
-            AnimatorSet animator = (AnimatorSet) AnimatorInflater
-                    .loadAnimator(getContext(), R.animator.bubble_up_click_animator);
-            animator.setTarget(this);
-            animator.start();
-        }
-    }
-
-    private void updateSize() {
-        DisplayMetrics metrics = new DisplayMetrics();
-        windowManager.getDefaultDisplay().getMetrics(metrics);
-        Display display = getWindowManager().getDefaultDisplay();
-        Point size = new Point();
-        display.getSize(size);
-        width = (size.x - this.getWidth());
-
+        playAnimation(R.animator.bubble_up_click_animator, this, false);
     }
 
     public interface OnBubbleRemoveListener {
@@ -185,49 +433,213 @@ public class BubbleLayout extends BubbleBaseLayout {
         void onBubbleClick(BubbleLayout bubble);
     }
 
+    public interface OnBubbleLongClickListener {
+        void onBubbleLongClick(BubbleLayout bubble);
+    }
+
+    void moveTo(int x, int y, boolean animated) {
+        if (animated && getFrameClock() != null) {
+            animator.start(x, y);
+        } else {
+            animator.stop();
+            move(x, y);
+        }
+    }
+
     public void goToWall() {
-        if(shouldStickToWall){
-            int middle = width / 2;
-            float nearestXWall = getViewParams().x >= middle ? width : 0;
-            animator.start(nearestXWall, getViewParams().y);
+        goToWall(0, 0);
+    }
+
+    private void goToWall(float velocityX, float velocityY) {
+        if(shouldStickToWall && displayGeometry != null){
+            int maxX = displayGeometry.getWidth() - getWidth();
+            int landingX = getViewParams().x;
+            int landingY = getViewParams().y;
+            if (Math.hypot(velocityX, velocityY) >= minimumFlingVelocity) {
+                int maxY = displayGeometry.getHeight() - getHeight();
+                landingX = Math.round(predictLanding(landingX, velocityX));
+                landingY = BubblesReflow.clamp(Math.round(predictLanding(landingY, velocityY)), 0, maxY);
+            } else {
+                velocityX = 0;
+                velocityY = 0;
+            }
+            int wallX = BubblesReflow.nearestWall(landingX, maxX);
+            if (docking != null) {
+                int maxY = displayGeometry.getHeight() - getHeight();
+                int edge = wallX == 0 ? BubblesDocking.LEFT_EDGE : BubblesDocking.RIGHT_EDGE;
+                int slot = docking.dock(this, edge, landingY, maxY);
+                if (slot != BubblesDocking.NO_SLOT) {
+                    wallX = dockedEdge == BubblesDocking.LEFT_EDGE ? 0 : maxX;
+                    landingY = BubblesReflow.clamp(docking.getSlotPosition(slot), 0, maxY);
+                }
+            }
+            animator.start(wallX, landingY, velocityX, velocityY);
         }
     }
 
-    private void move(float deltaX, float deltaY) {
-        getViewParams().x += deltaX;
-        getViewParams().y += deltaY;
-        windowManager.updateViewLayout(this, getViewParams());
+    private float predictLanding(float position, float velocity) {
+        flingMotion.start(position, velocity, 0);
+        return flingMotion.getFinalPosition();
     }
 
+    private void trackMovement(MotionEvent event) {
+        if (velocityTracker != null) {
+            float offsetX = event.getRawX() - event.getX();
+            float offsetY = event.getRawY() - event.getY();
+            event.offsetLocation(offsetX, offsetY);
+            velocityTracker.addMovement(event);
+            event.offsetLocation(-offsetX, -offsetY);
+        }
+    }
 
-    private class MoveAnimator implements Runnable {
-        private Handler handler = new Handler(Looper.getMainLooper());
+    private void trackPrediction(MotionEvent event) {
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        for (int sample = 0; sample < event.getHistorySize(); sample++) {
+            touchPredictor.addSample(event.getHistoricalX(sample) + offsetX,
+                    event.getHistoricalY(sample) + offsetY,
+                    event.getHistoricalEventTime(sample));
+        }
+        touchPredictor.addSample(event.getRawX(), event.getRawY(), event.getEventTime());
+    }
+
+    private void releaseVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    private void move(int x, int y) {
+        getViewParams().x = x;
+        getViewParams().y = y;
+        updateViewLayout();
+    }
+
+    private void beginMetricsSection(String sectionName) {
+        if (getMetrics() != null) {
+            getMetrics().beginSection(sectionName);
+        }
+    }
+
+    private void endMetricsSection() {
+        if (getMetrics() != null) {
+            getMetrics().endSection();
+        }
+    }
+
+    private void finishDrag() {
+        if (dragging) {
+            dragging = false;
+            if (renderer != null) {
+                renderer.onBubbleDragFinished(this);
+            }
+            updateMotionState();
+        }
+    }
+
+    private void updateMotionState() {
+        boolean moving = touching || animator.isRunning();
+        boolean promoted = dragging || animator.isRunning();
+        if (promoted != layerPromoted) {
+            layerPromoted = promoted;
+            if (promoted) {
+                promoteLayer();
+            } else {
+                demoteLayer();
+            }
+        }
+        if (moving != inMotion) {
+            inMotion = moving;
+            if (moving && stack != null) {
+                stack.onBubbleMotionStarted(this);
+            }
+            if (renderer != null) {
+                if (moving) {
+                    renderer.onBubbleMotionStarted(this);
+                } else {
+                    renderer.onBubbleMotionFinished(this);
+                }
+            }
+        }
+    }
+
+
+    private class MoveAnimator implements BubblesFrameClock.FrameCallback {
+        private final SpringMotion motionX = new SpringMotion();
+        private final SpringMotion motionY = new SpringMotion();
         private float destinationX;
         private float destinationY;
-        private long startingTime;
+        private float velocityX;
+        private float velocityY;
+        private boolean started;
+        private boolean running;
 
         private void start(float x, float y) {
+            start(x, y, 0, 0);
+        }
+
+        private void start(float x, float y, float velocityX, float velocityY) {
             this.destinationX = x;
             this.destinationY = y;
-            startingTime = System.currentTimeMillis();
-            handler.post(this);
+            this.velocityX = velocityX;
+            this.velocityY = velocityY;
+            started = false;
+            if (getFrameClock() != null) {
+                running = true;
+                getFrameClock().addCallback(this);
+                updateMotionState();
+            }
+        }
+
+        private boolean isRunning() {
+            return running;
+        }
+
+        private int clampToScreen(int x) {
+            if (displayGeometry == null) {
+                return x;
+            }
+            int maxX = displayGeometry.getWidth() - getWidth();
+            return BubblesReflow.clamp(x, Math.min(0, (int) destinationX), Math.max(maxX, (int) destinationX));
         }
 
         @Override
-        public void run() {
+        public boolean doFrame(long frameTimeNanos) {
             if (getRootView() != null && getRootView().getParent() != null) {
-                float progress = Math.min(1, (System.currentTimeMillis() - startingTime) / 400f);
-                float deltaX = (destinationX -  getViewParams().x) * progress;
-                float deltaY = (destinationY -  getViewParams().y) * progress;
-                move(deltaX, deltaY);
-                if (progress < 1) {
-                    handler.post(this);
+                if (!started) {
+                    motionX.startWithoutOvershoot(getViewParams().x, destinationX, velocityX, frameTimeNanos);
+                    motionY.startWithoutOvershoot(getViewParams().y, destinationY, velocityY, frameTimeNanos);
+                    started = true;
+                }
+                boolean finished = motionX.isFinished(frameTimeNanos) && motionY.isFinished(frameTimeNanos);
+                if (finished) {
+                    move((int) destinationX, (int) destinationY);
+                } else {
+                    move(clampToScreen(Math.round(motionX.getPosition(frameTimeNanos))),
+                         Math.round(motionY.getPosition(frameTimeNanos)));
+                }
+                if (finished) {
+                    finish();
                 }
+                return !finished;
             }
+            finish();
+            return false;
         }
 
         private void stop() {
-            handler.removeCallbacks(this);
+            if (getFrameClock() != null) {
+                getFrameClock().removeCallback(this);
+            }
+            finish();
+        }
+
+        private void finish() {
+            if (running) {
+                running = false;
+                updateMotionState();
+            }
         }
     }
 }
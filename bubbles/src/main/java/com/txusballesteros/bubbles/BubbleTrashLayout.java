@@ -24,17 +24,36 @@
  */
 package com.txusballesteros.bubbles;
 
-import android.animation.AnimatorInflater;
-import android.animation.AnimatorSet;
 import android.content.Context;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Vibrator;
 import android.util.AttributeSet;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
 
 class BubbleTrashLayout extends BubbleBaseLayout {
     public static final int VIBRATION_DURATION_IN_MS = 70;
+    // The magnetism animator grows the content to 1.3x and overshoots a little past it.
+    private static final float MAX_CONTENT_SCALE = 1.35f;
     private boolean magnetismApplied = false;
     private boolean attachedToWindow = false;
     private boolean isVibrateInThisSession = false;
+    private boolean addedToWindow = false;
+    private boolean lazyWindow = false;
+    private long windowIdleTimeout;
+    private BubblesDisplayGeometry displayGeometry;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Rect containerBounds = new Rect();
+    private final Rect contentBounds = new Rect();
+    private final Runnable removeFromWindowRunnable = new Runnable() {
+        @Override
+        public void run() {
+            removeFromWindow();
+        }
+    };
 
     public BubbleTrashLayout(Context context) {
         super(context);
@@ -52,6 +71,9 @@ class BubbleTrashLayout extends BubbleBaseLayout {
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
         attachedToWindow = true;
+        if (lazyWindow && getVisibility() == VISIBLE) {
+            playAnimation(R.animator.bubble_trash_shown_animator);
+        }
     }
 
     @Override
@@ -60,6 +82,90 @@ class BubbleTrashLayout extends BubbleBaseLayout {
         attachedToWindow = false;
     }
 
+    void setLazyWindow(long idleTimeoutInMs, BubblesDisplayGeometry displayGeometry) {
+        this.lazyWindow = true;
+        this.windowIdleTimeout = idleTimeoutInMs;
+        this.displayGeometry = displayGeometry;
+        setClipToPadding(false);
+    }
+
+    void addToWindow() {
+        if (!addedToWindow) {
+            if (lazyWindow) {
+                updateWindowPosition();
+            }
+            getWindowManager().addView(this, getViewParams());
+            addedToWindow = true;
+        }
+    }
+
+    void removeFromWindow() {
+        handler.removeCallbacks(removeFromWindowRunnable);
+        if (addedToWindow) {
+            getWindowManager().removeView(this);
+            addedToWindow = false;
+        }
+    }
+
+    void trimWindow() {
+        if (getVisibility() != VISIBLE) {
+            removeFromWindow();
+            releaseAnimators();
+        }
+    }
+
+    void show() {
+        handler.removeCallbacks(removeFromWindowRunnable);
+        addToWindow();
+        setVisibility(VISIBLE);
+    }
+
+    void hide() {
+        setVisibility(GONE);
+        if (lazyWindow && addedToWindow) {
+            handler.removeCallbacks(removeFromWindowRunnable);
+            handler.postDelayed(removeFromWindowRunnable, windowIdleTimeout);
+        }
+    }
+
+    void updateWindowPosition() {
+        if (!lazyWindow) {
+            return;
+        }
+        View contentView = getChildAt(0);
+        FrameLayout.LayoutParams contentParams = (FrameLayout.LayoutParams) contentView.getLayoutParams();
+        int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        contentView.measure(getChildMeasureSpec(unspecified, 0, contentParams.width),
+                getChildMeasureSpec(unspecified, 0, contentParams.height));
+        int gravity = contentParams.gravity != -1 ? contentParams.gravity : Gravity.TOP | Gravity.START;
+        containerBounds.set(contentParams.leftMargin,
+                contentParams.topMargin,
+                displayGeometry.getWidth() - contentParams.rightMargin,
+                displayGeometry.getHeight() - displayGeometry.getStatusBarHeight() - contentParams.bottomMargin);
+        Gravity.apply(gravity, contentView.getMeasuredWidth(), contentView.getMeasuredHeight(),
+                containerBounds, contentBounds);
+        int horizontalHeadroom = getScaleHeadroom(contentView.getMeasuredWidth());
+        int verticalHeadroom = getScaleHeadroom(contentView.getMeasuredHeight());
+        setPadding(horizontalHeadroom, verticalHeadroom, horizontalHeadroom, verticalHeadroom);
+        getViewParams().x = contentBounds.left - contentParams.leftMargin - horizontalHeadroom;
+        getViewParams().y = contentBounds.top - contentParams.topMargin - verticalHeadroom;
+        if (addedToWindow) {
+            getWindowManager().updateViewLayout(this, getViewParams());
+        }
+    }
+
+    private int getScaleHeadroom(int size) {
+        return (int) Math.ceil(size * (MAX_CONTENT_SCALE - 1f) / 2f);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        if (changed && getLayoutCoordinator() != null) {
+            getLayoutCoordinator().invalidateDropTargets();
+        }
+    }
+
     @Override
     public void setVisibility(int visibility) {
         if (attachedToWindow) {
@@ -100,11 +206,6 @@ class BubbleTrashLayout extends BubbleBaseLayout {
     }
 
     private void playAnimation(int animationResourceId) {
-        if (!isInEditMode()) {
-            AnimatorSet animator = (AnimatorSet) AnimatorInflater
-                    .loadAnimator(getContext(), animationResourceId);
-            animator.setTarget(getChildAt(0));
-            animator.start();
-        }
+        playAnimation(animationResourceId, getChildAt(0));
     }
 }
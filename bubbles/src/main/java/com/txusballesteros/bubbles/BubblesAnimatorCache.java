@@ -0,0 +1,69 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.animation.Animator;
+import android.animation.AnimatorInflater;
+import android.content.Context;
+import android.util.SparseArray;
+
+final class BubblesAnimatorCache {
+    private final Context context;
+    private final BubblesMetrics metrics;
+    private final BubblesStrictMode strictMode;
+    private final SparseArray<Animator> prototypes = new SparseArray<>();
+
+    BubblesAnimatorCache(Context context, BubblesMetrics metrics, BubblesStrictMode strictMode) {
+        this.context = context;
+        this.metrics = metrics;
+        this.strictMode = strictMode;
+    }
+
+    Animator obtain(int animatorResourceId) {
+        return getPrototype(animatorResourceId).clone();
+    }
+
+    void preload(int animatorResourceId) {
+        getPrototype(animatorResourceId);
+    }
+
+    private Animator getPrototype(int animatorResourceId) {
+        Animator prototype = prototypes.get(animatorResourceId);
+        if (prototype == null) {
+            strictMode.onAnimatorInflated(animatorResourceId);
+            metrics.beginSection("Bubbles#inflateAnimator");
+            long startTime = metrics.now();
+            prototype = AnimatorInflater.loadAnimator(context, animatorResourceId);
+            metrics.recordAnimatorInflation(startTime);
+            metrics.endSection();
+            prototypes.put(animatorResourceId, prototype);
+        }
+        return prototype;
+    }
+
+    void release() {
+        prototypes.clear();
+    }
+}
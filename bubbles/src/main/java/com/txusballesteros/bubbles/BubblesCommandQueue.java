@@ -0,0 +1,94 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BubblesCommandQueue implements Runnable {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final OnDrainListener drainListener;
+    private List<Runnable> pendingCommands = new ArrayList<>();
+    private List<Runnable> drainingCommands = new ArrayList<>();
+    private boolean scheduled = false;
+
+    BubblesCommandQueue(OnDrainListener drainListener) {
+        this.drainListener = drainListener;
+    }
+
+    void enqueue(Runnable command) {
+        pendingCommands.add(command);
+        if (!scheduled) {
+            scheduled = true;
+            handler.post(this);
+        }
+    }
+
+    void enqueueCallback(final OnBubblesOperationCallback callback) {
+        if (callback != null) {
+            enqueue(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onOperationCompleted();
+                }
+            });
+        }
+    }
+
+    void flush() {
+        while (!pendingCommands.isEmpty()) {
+            handler.removeCallbacks(this);
+            run();
+        }
+    }
+
+    void release() {
+        handler.removeCallbacks(this);
+        scheduled = false;
+        pendingCommands.clear();
+    }
+
+    @Override
+    public void run() {
+        scheduled = false;
+        List<Runnable> commands = pendingCommands;
+        pendingCommands = drainingCommands;
+        drainingCommands = commands;
+        drainListener.onDrainStarted();
+        for (int index = 0; index < commands.size(); index++) {
+            commands.get(index).run();
+        }
+        drainListener.onDrainFinished();
+        commands.clear();
+    }
+
+    interface OnDrainListener {
+        void onDrainStarted();
+        void onDrainFinished();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Point;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Display;
+import android.view.WindowManager;
+
+final class BubblesDisplayGeometry {
+    private final Context context;
+    private final WindowManager windowManager;
+    private final Point size = new Point();
+    private Object displayListener;
+    private OnDisplayGeometryChangedListener listener;
+    private int orientation = Configuration.ORIENTATION_PORTRAIT;
+    private int statusBarHeight = 0;
+    private int rotation = 0;
+
+    BubblesDisplayGeometry(Context context, WindowManager windowManager) {
+        this.context = context;
+        this.windowManager = windowManager;
+        update();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            displayListener = new DisplayChangedListener();
+        }
+    }
+
+    void setOnDisplayGeometryChangedListener(OnDisplayGeometryChangedListener listener) {
+        this.listener = listener;
+    }
+
+    int getWidth() {
+        return size.x;
+    }
+
+    int getHeight() {
+        return size.y;
+    }
+
+    int getOrientation() {
+        return orientation;
+    }
+
+    int getRotation() {
+        return rotation;
+    }
+
+    int getStatusBarHeight() {
+        return statusBarHeight;
+    }
+
+    boolean update() {
+        int oldWidth = size.x;
+        int oldHeight = size.y;
+        int oldRotation = rotation;
+        Display display = windowManager.getDefaultDisplay();
+        display.getSize(size);
+        rotation = display.getRotation();
+        Resources resources = context.getResources();
+        orientation = resources.getConfiguration().orientation;
+        int statusBarHeightId = resources.getIdentifier("status_bar_height", "dimen", "android");
+        statusBarHeight = statusBarHeightId > 0 ? resources.getDimensionPixelSize(statusBarHeightId) : 0;
+        boolean changed = oldWidth != size.x || oldHeight != size.y || oldRotation != rotation;
+        if (changed && listener != null) {
+            listener.onDisplayGeometryChanged(oldWidth, oldHeight);
+        }
+        return changed;
+    }
+
+    void release() {
+        if (displayListener != null) {
+            ((DisplayChangedListener) displayListener).unregister();
+            displayListener = null;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private class DisplayChangedListener implements DisplayManager.DisplayListener {
+        private final DisplayManager displayManager;
+
+        DisplayChangedListener() {
+            displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+            displayManager.registerDisplayListener(this, new Handler(Looper.getMainLooper()));
+        }
+
+        void unregister() {
+            displayManager.unregisterDisplayListener(this);
+        }
+
+        @Override
+        public void onDisplayAdded(int displayId) { }
+
+        @Override
+        public void onDisplayRemoved(int displayId) { }
+
+        @Override
+        public void onDisplayChanged(int displayId) {
+            if (displayId == Display.DEFAULT_DISPLAY) {
+                update();
+            }
+        }
+    }
+
+    interface OnDisplayGeometryChangedListener {
+        void onDisplayGeometryChanged(int oldWidth, int oldHeight);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+final class BubblesDocking {
+    static final int NO_EDGE = -1;
+    static final int LEFT_EDGE = 0;
+    static final int RIGHT_EDGE = 1;
+    static final int NO_SLOT = -1;
+    private final BubblesDockingPolicy policy;
+    private final Edge[] edges = { new Edge(), new Edge() };
+    private int slotSize = 0;
+    private OnSlotSizeChangedListener listener;
+
+    BubblesDocking(BubblesDockingPolicy policy) {
+        this.policy = policy;
+    }
+
+    void setOnSlotSizeChangedListener(OnSlotSizeChangedListener listener) {
+        this.listener = listener;
+    }
+
+    int dock(BubbleLayout bubble, int preferredEdge, int position, int maxPosition) {
+        undock(bubble);
+        updateSlotSize(bubble.getHeight());
+        if (slotSize <= 0) {
+            return NO_SLOT;
+        }
+        int firstPosition = policy.getTopMargin();
+        int lastPosition = maxPosition - policy.getBottomMargin();
+        if (lastPosition < firstPosition) {
+            return NO_SLOT;
+        }
+        int maxSlot = (lastPosition - firstPosition) / slotSize;
+        int desiredSlot = BubblesReflow.clamp(Math.round((position - firstPosition) / (float) slotSize), 0, maxSlot);
+        int edge = preferredEdge;
+        int slot = findSlot(edge, desiredSlot, maxSlot);
+        if (slot == NO_SLOT) {
+            edge = preferredEdge == LEFT_EDGE ? RIGHT_EDGE : LEFT_EDGE;
+            slot = findSlot(edge, desiredSlot, maxSlot);
+        }
+        if (slot == NO_SLOT) {
+            return NO_SLOT;
+        }
+        edges[edge].occupy(slot);
+        bubble.setDockedSlot(edge, slot);
+        return slot;
+    }
+
+    void undock(BubbleLayout bubble) {
+        int edge = bubble.getDockedEdge();
+        if (edge != NO_EDGE) {
+            edges[edge].release(bubble.getDockedSlot());
+            bubble.setDockedSlot(NO_EDGE, NO_SLOT);
+        }
+    }
+
+    int getSlotPosition(int slot) {
+        return policy.getTopMargin() + (slot * slotSize);
+    }
+
+    void clear() {
+        edges[LEFT_EDGE].clear();
+        edges[RIGHT_EDGE].clear();
+    }
+
+    private void updateSlotSize(int bubbleSize) {
+        int size = bubbleSize + policy.getGap();
+        if (size > slotSize) {
+            boolean resized = slotSize > 0;
+            slotSize = size;
+            if (resized && listener != null) {
+                listener.onSlotSizeChanged();
+            }
+        }
+    }
+
+    private int findSlot(int edge, int desiredSlot, int maxSlot) {
+        if (edges[edge].count >= policy.getMaxBubblesPerEdge()) {
+            return NO_SLOT;
+        }
+        return edges[edge].findFreeSlot(desiredSlot, maxSlot);
+    }
+
+    interface OnSlotSizeChangedListener {
+        void onSlotSizeChanged();
+    }
+
+    private static class Edge {
+        private final TreeMap<Integer, Integer> occupiedRuns = new TreeMap<>();
+        private int count = 0;
+
+        private int findFreeSlot(int desiredSlot, int maxSlot) {
+            Map.Entry<Integer, Integer> run = occupiedRuns.floorEntry(desiredSlot);
+            if (run == null || run.getValue() < desiredSlot) {
+                return desiredSlot;
+            }
+            int slotBefore = run.getKey() - 1;
+            int slotAfter = run.getValue() + 1;
+            boolean beforeAvailable = slotBefore >= 0;
+            boolean afterAvailable = slotAfter <= maxSlot;
+            if (beforeAvailable && afterAvailable) {
+                return (desiredSlot - slotBefore) <= (slotAfter - desiredSlot) ? slotBefore : slotAfter;
+            } else if (beforeAvailable) {
+                return slotBefore;
+            } else if (afterAvailable) {
+                return slotAfter;
+            }
+            return NO_SLOT;
+        }
+
+        private void occupy(int slot) {
+            int first = slot;
+            int last = slot;
+            Map.Entry<Integer, Integer> before = occupiedRuns.floorEntry(slot - 1);
+            if (before != null && before.getValue() == slot - 1) {
+                first = before.getKey();
+                occupiedRuns.remove(first);
+            }
+            Integer afterLast = occupiedRuns.remove(slot + 1);
+            if (afterLast != null) {
+                last = afterLast;
+            }
+            occupiedRuns.put(first, last);
+            count++;
+        }
+
+        private void release(int slot) {
+            Map.Entry<Integer, Integer> run = occupiedRuns.floorEntry(slot);
+            if (run == null || run.getValue() < slot) {
+                return;
+            }
+            int first = run.getKey();
+            int last = run.getValue();
+            occupiedRuns.remove(first);
+            if (first < slot) {
+                occupiedRuns.put(first, slot - 1);
+            }
+            if (slot < last) {
+                occupiedRuns.put(slot + 1, last);
+            }
+            count--;
+        }
+
+        private void clear() {
+            occupiedRuns.clear();
+            count = 0;
+        }
+    }
+}
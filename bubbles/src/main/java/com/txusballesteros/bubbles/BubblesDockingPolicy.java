@@ -0,0 +1,82 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+public final class BubblesDockingPolicy {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    private int gap = 0;
+    private int topMargin = 0;
+    private int bottomMargin = 0;
+    private int maxBubblesPerEdge = UNLIMITED;
+
+    private BubblesDockingPolicy() { }
+
+    int getGap() {
+        return gap;
+    }
+
+    int getTopMargin() {
+        return topMargin;
+    }
+
+    int getBottomMargin() {
+        return bottomMargin;
+    }
+
+    int getMaxBubblesPerEdge() {
+        return maxBubblesPerEdge;
+    }
+
+    public static class Builder {
+        private BubblesDockingPolicy policy;
+
+        public Builder() {
+            policy = new BubblesDockingPolicy();
+        }
+
+        public Builder setGap(int gapInPx) {
+            policy.gap = Math.max(0, gapInPx);
+            return this;
+        }
+
+        public Builder setMargins(int topMarginInPx, int bottomMarginInPx) {
+            policy.topMargin = Math.max(0, topMarginInPx);
+            policy.bottomMargin = Math.max(0, bottomMarginInPx);
+            return this;
+        }
+
+        public Builder setMaxBubblesPerEdge(int maxBubbles) {
+            if (maxBubbles <= 0) {
+                throw new IllegalArgumentException("Max bubbles per edge must be greater than zero");
+            }
+            policy.maxBubblesPerEdge = maxBubbles;
+            return this;
+        }
+
+        public BubblesDockingPolicy build() {
+            return policy;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BubblesFrameClock {
+    private static final long FALLBACK_FRAME_DELAY_IN_MS = 16;
+    private final List<FrameCallback> callbacks = new ArrayList<>();
+    private final List<FrameCallback> commitCallbacks = new ArrayList<>();
+    private final FrameScheduler scheduler;
+    private boolean frameScheduled = false;
+    private boolean dispatching = false;
+    private long frameCount = 0;
+
+    BubblesFrameClock() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            scheduler = new ChoreographerFrameScheduler();
+        } else {
+            scheduler = new HandlerFrameScheduler();
+        }
+    }
+
+    BubblesFrameClock(FrameScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    void addCallback(FrameCallback callback) {
+        addCallback(callbacks, callback);
+    }
+
+    void addCommitCallback(FrameCallback callback) {
+        addCallback(commitCallbacks, callback);
+    }
+
+    void removeCallback(FrameCallback callback) {
+        removeCallback(callbacks, callback);
+        removeCallback(commitCallbacks, callback);
+    }
+
+    boolean isRunning(FrameCallback callback) {
+        return callbacks.contains(callback) || commitCallbacks.contains(callback);
+    }
+
+    long getFrameCount() {
+        return frameCount;
+    }
+
+    void release() {
+        callbacks.clear();
+        commitCallbacks.clear();
+        if (frameScheduled) {
+            scheduler.cancel();
+            frameScheduled = false;
+        }
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled && !dispatching) {
+            frameScheduled = true;
+            scheduler.schedule();
+        }
+    }
+
+    private void addCallback(List<FrameCallback> callbacks, FrameCallback callback) {
+        if (!callbacks.contains(callback)) {
+            callbacks.add(callback);
+        }
+        scheduleFrame();
+    }
+
+    private void removeCallback(List<FrameCallback> callbacks, FrameCallback callback) {
+        int index = callbacks.indexOf(callback);
+        if (index >= 0) {
+            if (dispatching) {
+                callbacks.set(index, null);
+            } else {
+                callbacks.remove(index);
+            }
+        }
+    }
+
+    void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        dispatching = true;
+        dispatch(callbacks, frameTimeNanos);
+        dispatch(commitCallbacks, frameTimeNanos);
+        dispatching = false;
+        frameCount++;
+        if (!callbacks.isEmpty() || !commitCallbacks.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    private void dispatch(List<FrameCallback> callbacks, long frameTimeNanos) {
+        int count = callbacks.size();
+        for (int index = 0; index < count; index++) {
+            FrameCallback callback = callbacks.get(index);
+            if (callback != null && !callback.doFrame(frameTimeNanos)) {
+                callbacks.set(index, null);
+            }
+        }
+        for (int index = callbacks.size() - 1; index >= 0; index--) {
+            if (callbacks.get(index) == null) {
+                callbacks.remove(index);
+            }
+        }
+    }
+
+    interface FrameCallback {
+        boolean doFrame(long frameTimeNanos);
+    }
+
+    interface FrameScheduler {
+        void schedule();
+        void cancel();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class ChoreographerFrameScheduler implements FrameScheduler, Choreographer.FrameCallback {
+        private final Choreographer choreographer = Choreographer.getInstance();
+
+        @Override
+        public void schedule() {
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void cancel() {
+            choreographer.removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            BubblesFrameClock.this.doFrame(frameTimeNanos);
+        }
+    }
+
+    private class HandlerFrameScheduler implements FrameScheduler, Runnable {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void schedule() {
+            handler.postDelayed(this, FALLBACK_FRAME_DELAY_IN_MS);
+        }
+
+        @Override
+        public void cancel() {
+            handler.removeCallbacks(this);
+        }
+
+        @Override
+        public void run() {
+            doFrame(System.nanoTime());
+        }
+    }
+}
@@ -24,99 +24,233 @@
  */
 package com.txusballesteros.bubbles;
 
-import android.content.Context;
-import android.os.Vibrator;
 import android.view.View;
 import android.view.WindowManager;
 
+import java.util.ArrayList;
+import java.util.List;
+
 final class BubblesLayoutCoordinator {
-    private static BubblesLayoutCoordinator INSTANCE;
-    private BubbleTrashLayout trashView;
-    private WindowManager windowManager;
+    private final List<DropTarget> dropTargets = new ArrayList<>();
+    private final DropTargetIndex dropTargetIndex = new DropTargetIndex();
+    private boolean dropTargetsInvalidated = true;
+    private DragState dragState = DragState.IDLE;
+    private BubbleLayout draggedBubble;
+    private int currentTargetIndex = DropTargetIndex.NO_TARGET;
+    private OnBubbleDragListener dragListener;
+    private BubblesMetrics metrics;
+    private BubblesStrictMode strictMode;
     private BubblesService bubblesService;
 
-    private static BubblesLayoutCoordinator getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new BubblesLayoutCoordinator();
-        }
-        return INSTANCE;
+    private BubblesLayoutCoordinator() { }
+
+    void addDropTarget(DropTarget dropTarget) {
+        dropTargets.add(dropTarget);
+        dropTarget.getView().setLayoutCoordinator(this);
+        invalidateDropTargets();
     }
 
-    private BubblesLayoutCoordinator() { }
+    void invalidateDropTargets() {
+        dropTargetsInvalidated = true;
+    }
 
-    public void notifyBubblePositionChanged(BubbleLayout bubble, int x, int y) {
-        if (trashView != null) {
-            trashView.setVisibility(View.VISIBLE);
-            if (checkIfBubbleIsOverTrash(bubble)) {
-                trashView.applyMagnetism();
-                trashView.vibrate();
-                applyTrashMagnetismToBubble(bubble);
-            } else {
-                trashView.releaseMagnetism();
+    void setOnBubbleDragListener(OnBubbleDragListener listener) {
+        this.dragListener = listener;
+    }
+
+    void notifyBubbleTouched(BubbleLayout bubble) {
+        if (bubblesService != null) {
+            bubblesService.notifyBubblesInteraction();
+        }
+    }
+
+    boolean notifyBubblePositionChanged(BubbleLayout bubble, int x, int y) {
+        if (dragState == DragState.IDLE) {
+            startDragSession(bubble);
+        } else if (bubble != draggedBubble) {
+            return false;
+        }
+        if (dropTargets.isEmpty()) {
+            return false;
+        }
+        int bubbleCenterX = x + (bubble.getMeasuredWidth() / 2);
+        int bubbleCenterY = y + (bubble.getMeasuredHeight() / 2);
+        if (dragState == DragState.OVER_TARGET) {
+            DropTarget dropTarget = dropTargets.get(currentTargetIndex);
+            int hysteresis = dropTarget.getMagnetRadius() / 2;
+            if (dropTargetIndex.contains(currentTargetIndex, bubbleCenterX, bubbleCenterY, hysteresis)) {
+                return true;
             }
+            exitDropTarget(bubble);
+        }
+        int targetIndex = findDropTarget(bubbleCenterX, bubbleCenterY);
+        if (targetIndex != DropTargetIndex.NO_TARGET) {
+            enterDropTarget(bubble, targetIndex);
+            return true;
+        }
+        return false;
+    }
+
+    private void startDragSession(BubbleLayout bubble) {
+        dragState = DragState.DRAGGING;
+        draggedBubble = bubble;
+        if (metrics != null) {
+            metrics.onDragStarted();
+        }
+        showDropTargets();
+        if (strictMode != null) {
+            strictMode.onDragStarted();
+        }
+        if (dragListener != null) {
+            dragListener.onBubbleDragStarted(bubble);
+        }
+    }
+
+    private void enterDropTarget(BubbleLayout bubble, int targetIndex) {
+        DropTarget dropTarget = dropTargets.get(targetIndex);
+        dragState = DragState.OVER_TARGET;
+        currentTargetIndex = targetIndex;
+        dropTarget.getView().applyMagnetism();
+        dropTarget.getView().vibrate();
+        applyDropTargetMagnetismToBubble(targetIndex, bubble);
+        if (dragListener != null) {
+            dragListener.onBubbleEnteredDropTarget(bubble, dropTarget.getId());
         }
     }
 
-    private void applyTrashMagnetismToBubble(BubbleLayout bubble) {
-        View trashContentView = getTrashContent();
-        int trashCenterX = (trashContentView.getLeft() + (trashContentView.getMeasuredWidth() / 2));
-        int trashCenterY = (trashContentView.getTop() + (trashContentView.getMeasuredHeight() / 2));
-        int x = (trashCenterX - (bubble.getMeasuredWidth() / 2));
-        int y = (trashCenterY - (bubble.getMeasuredHeight() / 2));
+    private void exitDropTarget(BubbleLayout bubble) {
+        DropTarget dropTarget = dropTargets.get(currentTargetIndex);
+        dragState = DragState.DRAGGING;
+        currentTargetIndex = DropTargetIndex.NO_TARGET;
+        dropTarget.getView().releaseMagnetism();
+        if (dragListener != null) {
+            dragListener.onBubbleExitedDropTarget(bubble, dropTarget.getId());
+        }
+    }
+
+    private void applyDropTargetMagnetismToBubble(int targetIndex, BubbleLayout bubble) {
+        int x = (dropTargetIndex.getCenterX(targetIndex) - (bubble.getMeasuredWidth() / 2));
+        int y = (dropTargetIndex.getCenterY(targetIndex) - (bubble.getMeasuredHeight() / 2));
         bubble.getViewParams().x = x;
         bubble.getViewParams().y = y;
-        windowManager.updateViewLayout(bubble, bubble.getViewParams());
-    }
-
-    private boolean checkIfBubbleIsOverTrash(BubbleLayout bubble) {
-        boolean result = false;
-        if (trashView.getVisibility() == View.VISIBLE) {
-            View trashContentView = getTrashContent();
-            int trashWidth = trashContentView.getMeasuredWidth();
-            int trashHeight = trashContentView.getMeasuredHeight();
-            int trashLeft = (trashContentView.getLeft() - (trashWidth / 2));
-            int trashRight = (trashContentView.getLeft() + trashWidth + (trashWidth / 2));
-            int trashTop = (trashContentView.getTop() - (trashHeight / 2));
-            int trashBottom = (trashContentView.getTop() + trashHeight + (trashHeight / 2));
-            int bubbleWidth = bubble.getMeasuredWidth();
-            int bubbleHeight = bubble.getMeasuredHeight();
-            int bubbleLeft = bubble.getViewParams().x;
-            int bubbleRight = bubbleLeft + bubbleWidth;
-            int bubbleTop = bubble.getViewParams().y;
-            int bubbleBottom = bubbleTop + bubbleHeight;
-            if (bubbleLeft >= trashLeft && bubbleRight <= trashRight) {
-                if (bubbleTop >= trashTop && bubbleBottom <= trashBottom) {
-                    result = true;
+        bubble.updateViewLayout();
+    }
+
+    private int findDropTarget(int x, int y) {
+        updateDropTargetIndex();
+        int index = dropTargetIndex.find(x, y);
+        if (index != DropTargetIndex.NO_TARGET
+                && dropTargets.get(index).getView().getVisibility() != View.VISIBLE) {
+            return DropTargetIndex.NO_TARGET;
+        }
+        return index;
+    }
+
+    private void updateDropTargetIndex() {
+        if (dropTargetsInvalidated) {
+            boolean complete = true;
+            dropTargetIndex.clear();
+            for (int index = 0; index < dropTargets.size(); index++) {
+                DropTarget dropTarget = dropTargets.get(index);
+                View contentView = dropTarget.getContent();
+                if (contentView == null || contentView.getWidth() == 0) {
+                    dropTargetIndex.add(-1, -1, -1, -1);
+                    complete = false;
+                } else {
+                    WindowManager.LayoutParams params = dropTarget.getView().getViewParams();
+                    int radius = dropTarget.getMagnetRadius();
+                    int left = params.x + contentView.getLeft();
+                    int top = params.y + contentView.getTop();
+                    dropTargetIndex.add(left - radius,
+                            top - radius,
+                            left + contentView.getWidth() + radius,
+                            top + contentView.getHeight() + radius);
                 }
             }
+            dropTargetIndex.build();
+            dropTargetsInvalidated = !complete;
+        }
+    }
+
+    private void showDropTargets() {
+        for (int index = 0; index < dropTargets.size(); index++) {
+            dropTargets.get(index).getView().show();
+        }
+    }
+
+    private void hideDropTargets() {
+        for (int index = 0; index < dropTargets.size(); index++) {
+            dropTargets.get(index).getView().hide();
         }
-        return result;
     }
 
-    public void notifyBubbleRelease(BubbleLayout bubble) {
-        if (trashView != null) {
-            if (checkIfBubbleIsOverTrash(bubble)) {
+    void notifyBubbleRelease(BubbleLayout bubble) {
+        if (dragState == DragState.IDLE || bubble != draggedBubble) {
+            return;
+        }
+        DropTarget dropTarget = null;
+        if (dragState == DragState.OVER_TARGET) {
+            dropTarget = dropTargets.get(currentTargetIndex);
+            dropTarget.getView().releaseMagnetism();
+        }
+        dragState = DragState.IDLE;
+        draggedBubble = null;
+        currentTargetIndex = DropTargetIndex.NO_TARGET;
+        hideDropTargets();
+        if (metrics != null) {
+            metrics.onDragFinished();
+        }
+        if (strictMode != null) {
+            strictMode.onDragFinished();
+        }
+        if (dragListener != null) {
+            dragListener.onBubbleDragReleased(bubble, dropTarget != null
+                    ? dropTarget.getId() : OnBubbleDragListener.NO_DROP_TARGET);
+        }
+        if (dropTarget != null) {
+            if (dropTarget.removesBubble()) {
                 bubblesService.removeBubble(bubble);
             }
-            trashView.setVisibility(View.GONE);
+            dropTarget.notifyBubbleDropped(bubble);
+        }
+    }
+
+    void notifyBubbleRemoved(BubbleLayout bubble) {
+        if (bubble == draggedBubble) {
+            notifyBubbleRelease(bubble);
+        }
+    }
+
+    void release() {
+        dragState = DragState.IDLE;
+        draggedBubble = null;
+        currentTargetIndex = DropTargetIndex.NO_TARGET;
+        for (int index = 0; index < dropTargets.size(); index++) {
+            dropTargets.get(index).getView().setLayoutCoordinator(null);
         }
+        dropTargets.clear();
+        dropTargetIndex.clear();
+        dragListener = null;
+        metrics = null;
+        strictMode = null;
+        bubblesService = null;
     }
 
     public static class Builder {
         private BubblesLayoutCoordinator layoutCoordinator;
 
         public Builder(BubblesService service) {
-            layoutCoordinator = getInstance();
+            layoutCoordinator = new BubblesLayoutCoordinator();
             layoutCoordinator.bubblesService = service;
         }
 
-        public Builder setTrashView(BubbleTrashLayout trashView) {
-            layoutCoordinator.trashView = trashView;
+        public Builder setMetrics(BubblesMetrics metrics) {
+            layoutCoordinator.metrics = metrics;
             return this;
         }
 
-        public Builder setWindowManager(WindowManager windowManager) {
-            layoutCoordinator.windowManager = windowManager;
+        public Builder setStrictMode(BubblesStrictMode strictMode) {
+            layoutCoordinator.strictMode = strictMode;
             return this;
         }
 
@@ -125,7 +259,9 @@ final class BubblesLayoutCoordinator {
         }
     }
 
-    private View getTrashContent() {
-        return trashView.getChildAt(0);
+    private enum DragState {
+        IDLE,
+        DRAGGING,
+        OVER_TARGET
     }
 }
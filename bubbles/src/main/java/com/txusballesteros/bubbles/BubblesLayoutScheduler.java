@@ -0,0 +1,95 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BubblesLayoutScheduler implements BubblesFrameClock.FrameCallback {
+    private final BubblesFrameClock frameClock;
+    private final BubblesRenderer renderer;
+    private final BubblesMetrics metrics;
+    private final List<BubbleLayout> dirtyBubbles = new ArrayList<>();
+    private long droppedUpdateCount = 0;
+
+    BubblesLayoutScheduler(BubblesFrameClock frameClock, BubblesRenderer renderer, BubblesMetrics metrics) {
+        this.frameClock = frameClock;
+        this.renderer = renderer;
+        this.metrics = metrics;
+    }
+
+    void schedule(BubbleLayout bubble) {
+        if (bubble.isLayoutPending()) {
+            droppedUpdateCount++;
+        } else {
+            bubble.setLayoutPending(true);
+            dirtyBubbles.add(bubble);
+            frameClock.addCommitCallback(this);
+        }
+    }
+
+    void cancel(BubbleLayout bubble) {
+        if (bubble.isLayoutPending()) {
+            bubble.setLayoutPending(false);
+            dirtyBubbles.remove(bubble);
+        }
+    }
+
+    long getDroppedUpdateCount() {
+        return droppedUpdateCount;
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeNanos) {
+        flush(frameTimeNanos);
+        return false;
+    }
+
+    void flush(long frameTimeNanos) {
+        metrics.beginSection("Bubbles#layout");
+        renderer.beginBatch();
+        for (int index = 0; index < dirtyBubbles.size(); index++) {
+            BubbleLayout bubble = dirtyBubbles.get(index);
+            bubble.setLayoutPending(false);
+            if (bubble.getParent() != null) {
+                long startTime = metrics.now();
+                renderer.updateBubble(bubble);
+                metrics.recordLayoutUpdate(startTime);
+                metrics.recordTouchToLayout(bubble.consumeTouchEventTime());
+            }
+        }
+        dirtyBubbles.clear();
+        renderer.endBatch();
+        metrics.endSection();
+    }
+
+    void release() {
+        for (int index = 0; index < dirtyBubbles.size(); index++) {
+            dirtyBubbles.get(index).setLayoutPending(false);
+        }
+        dirtyBubbles.clear();
+        frameClock.removeCallback(this);
+    }
+}
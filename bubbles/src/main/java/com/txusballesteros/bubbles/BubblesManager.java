@@ -28,30 +28,55 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
+import android.graphics.Point;
 import android.os.IBinder;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class BubblesManager {
-    private static BubblesManager INSTANCE;
+    public static final int NO_BUBBLE_ID = BubblesRegistry.NO_ID;
     private Context context;
     private boolean bounded;
+    private boolean bindRequested;
+    private Class<? extends BubblesService> serviceClass = BubblesService.class;
     private BubblesService bubblesService;
     private int trashLayoutResourceId;
+    private boolean singleWindowMode;
+    private int bubblePoolSize;
+    private boolean animateReflow;
+    private boolean lazyTrashWindow;
+    private long trashWindowIdleTimeout = BubblesService.DEFAULT_TRASH_WINDOW_IDLE_TIMEOUT_IN_MS;
+    private boolean trashWindowPreWarm;
+    private boolean hardwareLayersEnabled = true;
+    private boolean metricsEnabled;
+    private BubblesMetrics.OnMetricsListener metricsListener;
+    private boolean strictModeEnabled;
+    private boolean warmUpEnabled;
+    private boolean touchPredictionEnabled;
+    private BubblesDockingPolicy dockingPolicy;
+    private int stackMaxVisibleBubbles;
+    private int stackFollowerOffset;
+    private long idleTrimTimeout = BubblesService.DEFAULT_IDLE_TRIM_TIMEOUT_IN_MS;
+    private SparseIntArray preInflatedBubbles = new SparseIntArray();
+    private List<PendingOperation> pendingOperations = new ArrayList<>();
+    private List<DropTargetConfiguration> dropTargets = new ArrayList<>();
     private OnInitializedCallback listener;
-
-    private static BubblesManager getInstance(Context context) {
-        if (INSTANCE == null) {
-            INSTANCE = new BubblesManager(context);
-        }
-        return INSTANCE;
-    }
+    private OnBubbleDragListener dragListener;
 
     private ServiceConnection bubbleServiceConnection = new ServiceConnection() {
         @Override
         public void onServiceConnected(ComponentName name, IBinder service) {
             BubblesService.BubblesServiceBinder binder = (BubblesService.BubblesServiceBinder)service;
             BubblesManager.this.bubblesService = binder.getService();
-            configureBubblesService();
+            if (bubblesService.beginConfiguration()) {
+                configureBubblesService();
+            }
             bounded = true;
+            replayPendingOperations();
             if (listener != null) {
                 listener.onInitialized();
             }
@@ -60,6 +85,7 @@ public class BubblesManager {
         @Override
         public void onServiceDisconnected(ComponentName name) {
             bounded = false;
+            bubblesService = null;
         }
     };
 
@@ -68,36 +94,210 @@ public class BubblesManager {
     }
 
     private void configureBubblesService() {
+        bubblesService.setSingleWindowMode(singleWindowMode);
+        bubblesService.setOnBubbleDragListener(dragListener);
+        bubblesService.setBubblePoolSize(bubblePoolSize);
+        bubblesService.setAnimateReflow(animateReflow);
+        bubblesService.setHardwareLayersEnabled(hardwareLayersEnabled);
+        bubblesService.setMetricsEnabled(metricsEnabled, metricsListener);
+        bubblesService.setStrictModeEnabled(strictModeEnabled);
+        bubblesService.setIdleTrimTimeout(idleTrimTimeout);
+        bubblesService.setTouchPredictionEnabled(touchPredictionEnabled);
+        bubblesService.setDockingPolicy(dockingPolicy);
+        bubblesService.setStackMode(stackMaxVisibleBubbles, stackFollowerOffset);
+        bubblesService.setLazyTrashWindow(lazyTrashWindow, trashWindowIdleTimeout,
+                trashWindowPreWarm || warmUpEnabled);
         bubblesService.addTrash(trashLayoutResourceId);
+        for (DropTargetConfiguration dropTarget : dropTargets) {
+            bubblesService.addDropTarget(dropTarget.layoutResourceId,
+                    dropTarget.magnetRadius, false, dropTarget.listener);
+        }
+        if (warmUpEnabled) {
+            bubblesService.preloadAnimators();
+        }
+        for (int index = 0; index < preInflatedBubbles.size(); index++) {
+            bubblesService.preInflateBubbles(preInflatedBubbles.keyAt(index),
+                    preInflatedBubbles.valueAt(index));
+        }
+    }
+
+    private void replayPendingOperations() {
+        for (int index = 0; index < pendingOperations.size(); index++) {
+            pendingOperations.get(index).run(bubblesService);
+        }
+        pendingOperations.clear();
     }
 
     public void initialize() {
-        context.bindService(new Intent(context, BubblesService.class),
-                bubbleServiceConnection,
-                Context.BIND_AUTO_CREATE);
+        if (!bindRequested) {
+            bindRequested = true;
+            context.bindService(new Intent(context, serviceClass),
+                    bubbleServiceConnection,
+                    Context.BIND_AUTO_CREATE);
+        }
     }
 
     public void recycle() {
-        context.unbindService(bubbleServiceConnection);
+        if (bindRequested) {
+            bindRequested = false;
+            bounded = false;
+            bubblesService = null;
+            pendingOperations.clear();
+            context.unbindService(bubbleServiceConnection);
+        }
+    }
+
+    public int addBubble(final BubbleLayout bubble, final int x, final int y) {
+        if (bounded) {
+            return bubblesService.addBubble(bubble, x, y);
+        }
+        pendingOperations.add(new PendingOperation() {
+            @Override
+            public void run(BubblesService service) {
+                service.addBubble(bubble, x, y);
+            }
+        });
+        return NO_BUBBLE_ID;
+    }
+
+    public int[] addBubbles(List<BubbleLayout> bubbles, List<Point> positions,
+                            final OnBubblesOperationCallback callback) {
+        if (bounded) {
+            return bubblesService.addBubbles(bubbles, positions, callback);
+        }
+        final List<BubbleLayout> pendingBubbles = new ArrayList<>(bubbles);
+        final List<Point> pendingPositions = new ArrayList<>(positions);
+        pendingOperations.add(new PendingOperation() {
+            @Override
+            public void run(BubblesService service) {
+                service.addBubbles(pendingBubbles, pendingPositions, callback);
+            }
+        });
+        int[] bubbleIds = new int[bubbles.size()];
+        Arrays.fill(bubbleIds, NO_BUBBLE_ID);
+        return bubbleIds;
     }
 
-    public void addBubble(BubbleLayout bubble, int x, int y) {
+    public void removeBubbles(List<BubbleLayout> bubbles, final OnBubblesOperationCallback callback) {
         if (bounded) {
-            bubblesService.addBubble(bubble, x, y);
+            bubblesService.removeBubbles(bubbles, callback);
+        } else {
+            final List<BubbleLayout> pendingBubbles = new ArrayList<>(bubbles);
+            pendingOperations.add(new PendingOperation() {
+                @Override
+                public void run(BubblesService service) {
+                    service.removeBubbles(pendingBubbles, callback);
+                }
+            });
         }
     }
 
-    public void removeBubble(BubbleLayout bubble) {
+    public void removeAll(final OnBubblesOperationCallback callback) {
+        if (bounded) {
+            bubblesService.removeAll(callback);
+        } else {
+            pendingOperations.add(new PendingOperation() {
+                @Override
+                public void run(BubblesService service) {
+                    service.removeAll(callback);
+                }
+            });
+        }
+    }
+
+    public void removeBubble(final BubbleLayout bubble) {
         if (bounded) {
             bubblesService.removeBubble(bubble);
+        } else {
+            pendingOperations.add(new PendingOperation() {
+                @Override
+                public void run(BubblesService service) {
+                    service.removeBubble(bubble);
+                }
+            });
         }
     }
 
+    /**
+     * Bubble ids are only issued by a bound service, so the id based calls
+     * throw an {@link IllegalStateException} while the manager is not bound.
+     */
+    public void removeBubble(int bubbleId) {
+        checkBound();
+        bubblesService.removeBubble(bubbleId);
+    }
+
+    public void updateBubble(int bubbleId, int x, int y) {
+        checkBound();
+        bubblesService.updateBubble(bubbleId, x, y);
+    }
+
+    public void bringBubbleToFront(int bubbleId) {
+        checkBound();
+        bubblesService.bringBubbleToFront(bubbleId);
+    }
+
+    public int getBubbleId(BubbleLayout bubble) {
+        if (bounded) {
+            return bubblesService.getBubbleId(bubble);
+        }
+        return NO_BUBBLE_ID;
+    }
+
+    public BubbleLayout getBubble(int bubbleId) {
+        if (bounded) {
+            return bubblesService.getBubble(bubbleId);
+        }
+        return null;
+    }
+
+    public BubbleLayout obtainBubble(int layoutResourceId) {
+        if (bounded) {
+            return bubblesService.obtainBubble(layoutResourceId);
+        }
+        BubbleLayout bubble = (BubbleLayout) LayoutInflater.from(context).inflate(layoutResourceId, null);
+        bubble.setLayoutResourceId(layoutResourceId);
+        return bubble;
+    }
+
+    public void releaseBubble(final BubbleLayout bubble) {
+        if (bounded) {
+            bubblesService.releaseBubble(bubble);
+        } else {
+            pendingOperations.add(new PendingOperation() {
+                @Override
+                public void run(BubblesService service) {
+                    service.releaseBubble(bubble);
+                }
+            });
+        }
+    }
+
+    private void checkBound() {
+        if (!bounded) {
+            throw new IllegalStateException("BubblesService is not bound");
+        }
+    }
+
+    public BubblesMetrics getMetrics() {
+        if (bounded) {
+            return bubblesService.getMetrics();
+        }
+        return null;
+    }
+
+    public long getDroppedLayoutUpdateCount() {
+        if (bounded) {
+            return bubblesService.getDroppedLayoutUpdateCount();
+        }
+        return 0;
+    }
+
     public static class Builder {
         private BubblesManager bubblesManager;
 
         public Builder(Context context) {
-            this.bubblesManager = getInstance(context);
+            this.bubblesManager = new BubblesManager(context.getApplicationContext());
         }
 
         public Builder setInitializationCallback(OnInitializedCallback listener) {
@@ -105,13 +305,137 @@ public class BubblesManager {
             return this;
         }
 
+        public Builder setOnBubbleDragListener(OnBubbleDragListener listener) {
+            bubblesManager.dragListener = listener;
+            return this;
+        }
+
         public Builder setTrashLayout(int trashLayoutResourceId) {
             bubblesManager.trashLayoutResourceId =trashLayoutResourceId;
             return this;
         }
 
+        public Builder addDropTarget(int layoutResourceId, OnBubbleDropListener listener) {
+            return addDropTarget(layoutResourceId, DropTarget.DEFAULT_MAGNET_RADIUS, listener);
+        }
+
+        public Builder addDropTarget(int layoutResourceId, int magnetRadius,
+                                     OnBubbleDropListener listener) {
+            DropTargetConfiguration dropTarget = new DropTargetConfiguration();
+            dropTarget.layoutResourceId = layoutResourceId;
+            dropTarget.magnetRadius = magnetRadius;
+            dropTarget.listener = listener;
+            bubblesManager.dropTargets.add(dropTarget);
+            return this;
+        }
+
+        public Builder setBubblePoolSize(int poolSize) {
+            bubblesManager.bubblePoolSize = poolSize;
+            return this;
+        }
+
+        public Builder setLazyTrashWindow(boolean lazy) {
+            bubblesManager.lazyTrashWindow = lazy;
+            return this;
+        }
+
+        public Builder setTrashWindowIdleTimeout(long idleTimeoutInMs) {
+            bubblesManager.trashWindowIdleTimeout = idleTimeoutInMs;
+            return this;
+        }
+
+        public Builder setTrashWindowPreWarm(boolean preWarm) {
+            bubblesManager.trashWindowPreWarm = preWarm;
+            return this;
+        }
+
+        public Builder setMetricsEnabled(boolean enabled) {
+            bubblesManager.metricsEnabled = enabled;
+            return this;
+        }
+
+        public Builder setOnMetricsListener(BubblesMetrics.OnMetricsListener listener) {
+            bubblesManager.metricsListener = listener;
+            return this;
+        }
+
+        public Builder setStrictModeEnabled(boolean enabled) {
+            bubblesManager.strictModeEnabled = enabled;
+            return this;
+        }
+
+        public Builder setStackMode(int maxVisibleBubbles, int followerOffsetInPx) {
+            bubblesManager.stackMaxVisibleBubbles = maxVisibleBubbles;
+            bubblesManager.stackFollowerOffset = followerOffsetInPx;
+            return this;
+        }
+
+        public Builder setDockingPolicy(BubblesDockingPolicy policy) {
+            bubblesManager.dockingPolicy = policy;
+            return this;
+        }
+
+        public Builder setTouchPredictionEnabled(boolean enabled) {
+            bubblesManager.touchPredictionEnabled = enabled;
+            return this;
+        }
+
+        public Builder setHardwareLayersEnabled(boolean enabled) {
+            bubblesManager.hardwareLayersEnabled = enabled;
+            return this;
+        }
+
+        public Builder setAnimateReflow(boolean animated) {
+            bubblesManager.animateReflow = animated;
+            return this;
+        }
+
+        /**
+         * Hosts bubbles that touch each other in one shared overlay window. A
+         * dragged bubble's window covers the whole screen; bubbles apart from the
+         * rest get a window of their own, so the space between them stays
+         * touchable for the apps below.
+         */
+        public Builder setSingleWindowMode(boolean enabled) {
+            bubblesManager.singleWindowMode = enabled;
+            return this;
+        }
+
+        public Builder addPreInflatedBubbles(int layoutResourceId, int count) {
+            bubblesManager.preInflatedBubbles.put(layoutResourceId, count);
+            return this;
+        }
+
+        public Builder setIdleTrimTimeout(long idleTimeoutInMs) {
+            bubblesManager.idleTrimTimeout = idleTimeoutInMs;
+            return this;
+        }
+
+        public Builder setServiceClass(Class<? extends BubblesService> serviceClass) {
+            bubblesManager.serviceClass = serviceClass;
+            return this;
+        }
+
+        public Builder setWarmUpEnabled(boolean enabled) {
+            bubblesManager.warmUpEnabled = enabled;
+            return this;
+        }
+
         public BubblesManager build() {
+            if (bubblesManager.warmUpEnabled) {
+                bubblesManager.initialize();
+            }
             return bubblesManager;
         }
     }
+
+    private interface PendingOperation {
+        void run(BubblesService service);
+    }
+
+    private static class DropTargetConfiguration {
+        private int layoutResourceId;
+        private int magnetRadius;
+        private OnBubbleDropListener listener;
+    }
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+public final class BubblesMetrics {
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final long MICROS_PER_MILLI = 1000;
+    private static final long DEFAULT_FRAME_INTERVAL_IN_NANOS = 16666667L;
+    private final Histogram touchToLayoutLatency = new Histogram();
+    private final Histogram layoutUpdateDuration = new Histogram();
+    private final Histogram jankyFramesPerDrag = new Histogram();
+    private final Histogram animatorInflationDuration = new Histogram();
+    private final Histogram addBubbleLatency = new Histogram();
+    private final Histogram removeBubbleLatency = new Histogram();
+    private final DragFrameCallback dragFrameCallback = new DragFrameCallback();
+    private final BubblesFrameClock frameClock;
+    private OnMetricsListener listener;
+    private boolean enabled = false;
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_IN_NANOS;
+    private long layoutUpdateCount = 0;
+
+    BubblesMetrics(BubblesFrameClock frameClock) {
+        this.frameClock = frameClock;
+    }
+
+    public Histogram getTouchToLayoutLatency() {
+        return touchToLayoutLatency;
+    }
+
+    public Histogram getLayoutUpdateDuration() {
+        return layoutUpdateDuration;
+    }
+
+    public long getLayoutUpdateCount() {
+        return layoutUpdateCount;
+    }
+
+    public Histogram getJankyFramesPerDrag() {
+        return jankyFramesPerDrag;
+    }
+
+    public Histogram getAnimatorInflationDuration() {
+        return animatorInflationDuration;
+    }
+
+    public Histogram getAddBubbleLatency() {
+        return addBubbleLatency;
+    }
+
+    public Histogram getRemoveBubbleLatency() {
+        return removeBubbleLatency;
+    }
+
+    public void reset() {
+        touchToLayoutLatency.reset();
+        layoutUpdateDuration.reset();
+        jankyFramesPerDrag.reset();
+        animatorInflationDuration.reset();
+        addBubbleLatency.reset();
+        removeBubbleLatency.reset();
+        layoutUpdateCount = 0;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            dragFrameCallback.stop();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setOnMetricsListener(OnMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            frameIntervalNanos = (long) (1000000000L / refreshRate);
+        }
+    }
+
+    void beginSection(String sectionName) {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    void endSection() {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    long now() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void recordTouchToLayout(long touchEventTimeInMs) {
+        if (enabled && touchEventTimeInMs > 0) {
+            touchToLayoutLatency.record((SystemClock.uptimeMillis() - touchEventTimeInMs) * MICROS_PER_MILLI);
+        }
+    }
+
+    void recordLayoutUpdate(long startTimeNanos) {
+        if (enabled && startTimeNanos > 0) {
+            layoutUpdateCount++;
+            layoutUpdateDuration.record((System.nanoTime() - startTimeNanos) / NANOS_PER_MICRO);
+        }
+    }
+
+    void recordAnimatorInflation(long startTimeNanos) {
+        if (enabled && startTimeNanos > 0) {
+            animatorInflationDuration.record((System.nanoTime() - startTimeNanos) / NANOS_PER_MICRO);
+        }
+    }
+
+    void recordAddBubble(long enqueueTimeNanos) {
+        if (enabled && enqueueTimeNanos > 0) {
+            addBubbleLatency.record((System.nanoTime() - enqueueTimeNanos) / NANOS_PER_MICRO);
+        }
+    }
+
+    void recordRemoveBubble(long enqueueTimeNanos) {
+        if (enabled && enqueueTimeNanos > 0) {
+            removeBubbleLatency.record((System.nanoTime() - enqueueTimeNanos) / NANOS_PER_MICRO);
+        }
+    }
+
+    void onDragStarted() {
+        if (enabled) {
+            dragFrameCallback.start();
+        }
+    }
+
+    void onDragFinished() {
+        if (dragFrameCallback.isRunning()) {
+            jankyFramesPerDrag.record(dragFrameCallback.jankyFrames);
+            dragFrameCallback.stop();
+            if (listener != null) {
+                listener.onDragSessionMeasured(this);
+            }
+        }
+    }
+
+    void release() {
+        dragFrameCallback.stop();
+        listener = null;
+    }
+
+    private class DragFrameCallback implements BubblesFrameClock.FrameCallback {
+        private boolean running = false;
+        private long lastFrameTimeNanos;
+        private int jankyFrames;
+
+        private void start() {
+            running = true;
+            lastFrameTimeNanos = 0;
+            jankyFrames = 0;
+            frameClock.addCallback(this);
+        }
+
+        private void stop() {
+            running = false;
+            frameClock.removeCallback(this);
+        }
+
+        private boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public boolean doFrame(long frameTimeNanos) {
+            if (lastFrameTimeNanos != 0
+                    && frameTimeNanos - lastFrameTimeNanos > (frameIntervalNanos * 3) / 2) {
+                jankyFrames++;
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+            return running;
+        }
+    }
+
+    public interface OnMetricsListener {
+        void onDragSessionMeasured(BubblesMetrics metrics);
+    }
+
+    public static final class Histogram {
+        private static final int BUCKET_COUNT = 32;
+        private final long[] buckets = new long[BUCKET_COUNT];
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        Histogram() { }
+
+        void record(long value) {
+            long sample = Math.max(0, value);
+            int bucket = sample == 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(sample));
+            buckets[bucket]++;
+            count++;
+            sum += sample;
+            max = Math.max(max, sample);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100d);
+            long accumulated = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                accumulated += buckets[bucket];
+                if (accumulated >= Math.max(1, threshold)) {
+                    return Math.min(max, getBucketUpperBound(bucket));
+                }
+            }
+            return max;
+        }
+
+        public int getBucketCount() {
+            return BUCKET_COUNT;
+        }
+
+        public long getBucketUpperBound(int bucket) {
+            return bucket == 0 ? 0 : (1L << bucket) - 1;
+        }
+
+        public long getBucketValue(int bucket) {
+            return buckets[bucket];
+        }
+
+        public void reset() {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                buckets[bucket] = 0;
+            }
+            count = 0;
+            sum = 0;
+            max = 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BubblesPool {
+    private final SparseArray<List<BubbleLayout>> pools = new SparseArray<>();
+    private int maxPoolSize;
+
+    BubblesPool(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        for (int index = 0; index < pools.size(); index++) {
+            List<BubbleLayout> pool = pools.valueAt(index);
+            while (pool.size() > maxPoolSize) {
+                pool.remove(pool.size() - 1);
+            }
+        }
+    }
+
+    BubbleLayout acquire(int layoutResourceId) {
+        List<BubbleLayout> pool = pools.get(layoutResourceId);
+        if (pool == null || pool.isEmpty()) {
+            return null;
+        }
+        return pool.remove(pool.size() - 1);
+    }
+
+    boolean release(BubbleLayout bubble) {
+        int layoutResourceId = bubble.getLayoutResourceId();
+        if (layoutResourceId == 0 || maxPoolSize <= 0) {
+            return false;
+        }
+        List<BubbleLayout> pool = pools.get(layoutResourceId);
+        if (pool == null) {
+            pool = new ArrayList<>(maxPoolSize);
+            pools.put(layoutResourceId, pool);
+        }
+        if (pool.size() >= maxPoolSize || pool.contains(bubble)) {
+            return false;
+        }
+        pool.add(bubble);
+        return true;
+    }
+
+    void clear() {
+        pools.clear();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+final class BubblesReflow {
+    private BubblesReflow() { }
+
+    static int mapPosition(int position, int oldMaxPosition, int newMaxPosition) {
+        if (newMaxPosition <= 0) {
+            return 0;
+        }
+        if (oldMaxPosition <= 0 || position >= oldMaxPosition) {
+            return position <= 0 ? 0 : newMaxPosition;
+        }
+        if (position <= 0) {
+            return 0;
+        }
+        long mapped = ((long) position * newMaxPosition) / oldMaxPosition;
+        return clamp((int) mapped, 0, newMaxPosition);
+    }
+
+    static int nearestWall(int position, int maxPosition) {
+        return position >= (maxPosition / 2) ? maxPosition : 0;
+    }
+
+    static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class BubblesRegistry<T> {
+    static final int NO_ID = 0;
+    private final Map<Integer, T> itemsById = new LinkedHashMap<>();
+    private final Map<T, Integer> idsByItem = new IdentityHashMap<>();
+    private int nextId = 1;
+
+    int register(T item) {
+        Integer id = idsByItem.get(item);
+        if (id == null) {
+            id = nextId++;
+            itemsById.put(id, item);
+            idsByItem.put(item, id);
+        }
+        return id;
+    }
+
+    T get(int id) {
+        return itemsById.get(id);
+    }
+
+    int getId(T item) {
+        Integer id = idsByItem.get(item);
+        return id != null ? id : NO_ID;
+    }
+
+    boolean contains(T item) {
+        return idsByItem.containsKey(item);
+    }
+
+    T unregister(int id) {
+        T item = itemsById.remove(id);
+        if (item != null) {
+            idsByItem.remove(item);
+        }
+        return item;
+    }
+
+    boolean unregister(T item) {
+        Integer id = idsByItem.remove(item);
+        if (id != null) {
+            itemsById.remove(id);
+            return true;
+        }
+        return false;
+    }
+
+    boolean bringToFront(int id) {
+        T item = itemsById.remove(id);
+        if (item != null) {
+            itemsById.put(id, item);
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return itemsById.size();
+    }
+
+    boolean isEmpty() {
+        return itemsById.isEmpty();
+    }
+
+    Collection<T> getAll() {
+        return itemsById.values();
+    }
+
+    List<T> clear() {
+        List<T> items = new ArrayList<>(itemsById.values());
+        itemsById.clear();
+        idsByItem.clear();
+        return items;
+    }
+}
@@ -26,6 +26,7 @@ package com.txusballesteros.bubbles;
 
 import android.app.Service;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.graphics.PixelFormat;
 import android.graphics.Point;
 import android.os.Binder;
@@ -42,11 +43,169 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class BubblesService extends Service {
+    static final long DEFAULT_TRASH_WINDOW_IDLE_TIMEOUT_IN_MS = 5000;
+    static final long DEFAULT_IDLE_TRIM_TIMEOUT_IN_MS = 0;
     private BubblesServiceBinder binder = new BubblesServiceBinder();
-    private List<BubbleLayout> bubbles = new ArrayList<>();
-    private BubbleTrashLayout bubblesTrash;
+    private BubblesRegistry<BubbleLayout> bubbles = new BubblesRegistry<>();
+    private List<BubbleTrashLayout> dropTargetViews = new ArrayList<>();
     private WindowManager windowManager;
     private BubblesLayoutCoordinator layoutCoordinator;
+    private BubblesFrameClock frameClock;
+    private BubblesAnimatorCache animatorCache;
+    private BubblesRenderer renderer;
+    private BubblesLayoutScheduler layoutScheduler;
+    private boolean singleWindowMode = false;
+    private BubblesPool bubblesPool = new BubblesPool(0);
+    private BubblesCommandQueue commandQueue;
+    private BubblesDisplayGeometry displayGeometry;
+    private BubblesMetrics metrics;
+    private BubblesStrictMode strictMode;
+    private boolean animateReflow = false;
+    private boolean lazyTrashWindow = false;
+    private long trashWindowIdleTimeout = DEFAULT_TRASH_WINDOW_IDLE_TIMEOUT_IN_MS;
+    private boolean trashWindowPreWarm = false;
+    private boolean hardwareLayersEnabled = true;
+    private boolean touchPredictionEnabled = false;
+    private float refreshRate;
+    private boolean configured = false;
+    private BubblesDocking docking;
+    private BubblesStack stack;
+    private long idleTrimTimeout = DEFAULT_IDLE_TRIM_TIMEOUT_IN_MS;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable idleTrimRunnable = new Runnable() {
+        @Override
+        public void run() {
+            releaseIdleViews();
+        }
+    };
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        frameClock = createFrameClock();
+        strictMode = new BubblesStrictMode(frameClock);
+        metrics = new BubblesMetrics(frameClock);
+        refreshRate = getWindowManager().getDefaultDisplay().getRefreshRate();
+        metrics.setRefreshRate(refreshRate);
+        animatorCache = new BubblesAnimatorCache(this, metrics, strictMode);
+        displayGeometry = new BubblesDisplayGeometry(this, getWindowManager());
+        displayGeometry.setOnDisplayGeometryChangedListener(
+                new BubblesDisplayGeometry.OnDisplayGeometryChangedListener() {
+            @Override
+            public void onDisplayGeometryChanged(int oldWidth, int oldHeight) {
+                getLayoutCoordinator().invalidateDropTargets();
+                for (BubbleTrashLayout dropTargetView : dropTargetViews) {
+                    dropTargetView.updateWindowPosition();
+                }
+                reflowBubbles(oldWidth, oldHeight);
+            }
+        });
+        commandQueue = new BubblesCommandQueue(new BubblesCommandQueue.OnDrainListener() {
+            @Override
+            public void onDrainStarted() {
+                getRenderer().beginBatch();
+            }
+
+            @Override
+            public void onDrainFinished() {
+                getRenderer().endBatch();
+            }
+        });
+    }
+
+    @Override
+    public void onDestroy() {
+        handler.removeCallbacks(idleTrimRunnable);
+        if (stack != null) {
+            stack.clear();
+        }
+        commandQueue.flush();
+        commandQueue.release();
+        if (layoutScheduler != null) {
+            layoutScheduler.release();
+        }
+        metrics.release();
+        frameClock.release();
+        if (layoutCoordinator != null) {
+            layoutCoordinator.release();
+            layoutCoordinator = null;
+        }
+        for (BubbleLayout bubble : bubbles.clear()) {
+            bubble.releaseReferences();
+        }
+        for (BubbleTrashLayout dropTargetView : dropTargetViews) {
+            dropTargetView.removeFromWindow();
+            dropTargetView.releaseReferences();
+        }
+        dropTargetViews.clear();
+        animatorCache.release();
+        displayGeometry.release();
+        bubblesPool.clear();
+        if (renderer != null) {
+            renderer.release();
+        }
+        super.onDestroy();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            return;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            bubblesPool.clear();
+            releaseAnimatorCache();
+            releaseIdleViews();
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            bubblesPool.clear();
+        }
+    }
+
+    private void releaseAnimatorCache() {
+        animatorCache.release();
+        if (strictMode.isEnabled()) {
+            preloadAnimators();
+        }
+    }
+
+    private void releaseIdleViews() {
+        for (BubbleTrashLayout dropTargetView : dropTargetViews) {
+            dropTargetView.trimWindow();
+        }
+        for (BubbleLayout bubble : bubbles.getAll()) {
+            if (bubble.isIdle()) {
+                bubble.releaseAnimators();
+            }
+        }
+    }
+
+    void notifyBubblesInteraction() {
+        handler.removeCallbacks(idleTrimRunnable);
+        if (idleTrimTimeout > 0) {
+            handler.postDelayed(idleTrimRunnable, idleTrimTimeout);
+        }
+    }
+
+    boolean beginConfiguration() {
+        if (configured) {
+            return false;
+        }
+        configured = true;
+        return true;
+    }
+
+    void setIdleTrimTimeout(long idleTimeoutInMs) {
+        this.idleTrimTimeout = idleTimeoutInMs;
+        notifyBubblesInteraction();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        getLayoutCoordinator().invalidateDropTargets();
+        displayGeometry.update();
+    }
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -55,69 +214,446 @@ public class BubblesService extends Service {
 
     @Override
     public boolean onUnbind(Intent intent) {
-        for (BubbleLayout bubble : bubbles) {
-            recycleBubble(bubble);
-        }
-        bubbles.clear();
+        removeAll(null);
         return super.onUnbind(intent);
     }
 
-    private void recycleBubble(final BubbleLayout bubble) {
-        new Handler(Looper.getMainLooper()).post(new Runnable() {
+    private void recycleBubble(BubbleLayout bubble, boolean reuse) {
+        if (bubbles.unregister(bubble)) {
+            undockBubble(bubble);
+            if (stack != null) {
+                stack.remove(bubble);
+            }
+            removeBubbleFromScreen(bubble, reuse);
+        }
+    }
+
+    private void undockBubble(BubbleLayout bubble) {
+        if (docking != null) {
+            docking.undock(bubble);
+        }
+        bubble.setDocking(null);
+    }
+
+    private void removeBubbleFromScreen(final BubbleLayout bubble, final boolean reuse) {
+        final long enqueueTime = metrics.now();
+        commandQueue.enqueue(new Runnable() {
             @Override
             public void run() {
-                getWindowManager().removeView(bubble);
-                for (BubbleLayout cachedBubble : bubbles) {
-                    if (cachedBubble == bubble) {
-                        bubble.notifyBubbleRemoved();
-                        bubbles.remove(cachedBubble);
-                        break;
-                    }
+                metrics.beginSection("Bubbles#removeBubble");
+                getLayoutScheduler().cancel(bubble);
+                getLayoutCoordinator().notifyBubbleRemoved(bubble);
+                if (bubble.getParent() != null) {
+                    getRenderer().removeBubble(bubble);
+                }
+                bubble.notifyBubbleRemoved();
+                if (reuse && bubblesPool.release(bubble)) {
+                    bubble.resetState();
+                } else {
+                    bubble.releaseAnimators();
                 }
+                metrics.recordRemoveBubble(enqueueTime);
+                metrics.endSection();
             }
         });
     }
 
     private WindowManager getWindowManager() {
         if (windowManager == null) {
-            windowManager = (WindowManager)getSystemService(WINDOW_SERVICE);
+            windowManager = new StrictModeWindowManager(createWindowManager(), strictMode);
         }
         return windowManager;
     }
 
-    public void addBubble(BubbleLayout bubble, int x, int y) {
-        WindowManager.LayoutParams layoutParams = buildLayoutParamsForBubble(x, y);
+    WindowManager createWindowManager() {
+        return (WindowManager)getSystemService(WINDOW_SERVICE);
+    }
+
+    BubblesFrameClock createFrameClock() {
+        return new BubblesFrameClock();
+    }
+
+    private BubblesRenderer getRenderer() {
+        if (renderer == null) {
+            if (singleWindowMode) {
+                renderer = new OverlayBubblesRenderer(this, getWindowManager(), frameClock);
+            } else {
+                renderer = new WindowBubblesRenderer(getWindowManager());
+            }
+        }
+        return renderer;
+    }
+
+    private BubblesLayoutScheduler getLayoutScheduler() {
+        if (layoutScheduler == null) {
+            layoutScheduler = new BubblesLayoutScheduler(frameClock, getRenderer(), metrics);
+        }
+        return layoutScheduler;
+    }
+
+    public long getDroppedLayoutUpdateCount() {
+        return layoutScheduler != null ? layoutScheduler.getDroppedUpdateCount() : 0;
+    }
+
+    void setLazyTrashWindow(boolean lazy, long idleTimeoutInMs, boolean preWarm) {
+        this.lazyTrashWindow = lazy;
+        this.trashWindowIdleTimeout = idleTimeoutInMs;
+        this.trashWindowPreWarm = preWarm;
+    }
+
+    void setMetricsEnabled(boolean enabled, BubblesMetrics.OnMetricsListener listener) {
+        metrics.setEnabled(enabled);
+        metrics.setOnMetricsListener(listener);
+    }
+
+    public BubblesMetrics getMetrics() {
+        return metrics.isEnabled() ? metrics : null;
+    }
+
+    void setStrictModeEnabled(boolean enabled) {
+        strictMode.setEnabled(enabled);
+        if (enabled) {
+            preloadAnimators();
+        }
+    }
+
+    void setTouchPredictionEnabled(boolean enabled) {
+        this.touchPredictionEnabled = enabled;
+        for (BubbleLayout bubble : bubbles.getAll()) {
+            bubble.setTouchPredictionEnabled(enabled, refreshRate);
+        }
+    }
+
+    void setHardwareLayersEnabled(boolean enabled) {
+        this.hardwareLayersEnabled = enabled;
+        for (BubbleLayout bubble : bubbles.getAll()) {
+            bubble.setDefaultHardwareLayersEnabled(enabled);
+        }
+        for (BubbleTrashLayout dropTargetView : dropTargetViews) {
+            dropTargetView.setLayerPromotionEnabled(enabled);
+        }
+    }
+
+    void setAnimateReflow(boolean animated) {
+        this.animateReflow = animated;
+    }
+
+    private void reflowBubbles(int oldWidth, int oldHeight) {
+        int newWidth = displayGeometry.getWidth();
+        int newHeight = displayGeometry.getHeight();
+        if (docking != null) {
+            docking.clear();
+        }
+        for (BubbleLayout bubble : bubbles.getAll()) {
+            WindowManager.LayoutParams params = bubble.getViewParams();
+            int bubbleWidth = bubble.getMeasuredWidth();
+            int bubbleHeight = bubble.getMeasuredHeight();
+            int x = BubblesReflow.mapPosition(params.x, oldWidth - bubbleWidth, newWidth - bubbleWidth);
+            int y = BubblesReflow.mapPosition(params.y, oldHeight - bubbleHeight, newHeight - bubbleHeight);
+            int dockedEdge = bubble.getDockedEdge();
+            if (dockedEdge != BubblesDocking.NO_EDGE) {
+                bubble.setDockedSlot(BubblesDocking.NO_EDGE, BubblesDocking.NO_SLOT);
+                int slot = docking.dock(bubble, dockedEdge, y, newHeight - bubbleHeight);
+                if (slot != BubblesDocking.NO_SLOT) {
+                    x = getDockedPosition(bubble, newWidth);
+                    y = BubblesReflow.clamp(docking.getSlotPosition(slot), 0, newHeight - bubbleHeight);
+                }
+            }
+            if (x != params.x || y != params.y) {
+                bubble.moveTo(x, y, animateReflow);
+            }
+        }
+        if (stack != null) {
+            stack.start();
+        }
+    }
+
+    void setStackMode(int maxVisibleBubbles, int followerOffset) {
+        if (stack != null || !bubbles.isEmpty()) {
+            return;
+        }
+        if (maxVisibleBubbles > 0) {
+            stack = new BubblesStack(frameClock, new BubblesStack.Host() {
+                @Override
+                public void attachBubble(BubbleLayout bubble) {
+                    addBubbleToRenderer(bubble);
+                }
+
+                @Override
+                public void detachBubble(BubbleLayout bubble) {
+                    removeBubbleFromRenderer(bubble);
+                }
+
+                @Override
+                public void bringBubbleToFront(BubbleLayout bubble) {
+                    bringBubbleToFrontInRenderer(bubble);
+                }
+            }, maxVisibleBubbles, followerOffset);
+        }
+    }
+
+    private void removeBubbleFromRenderer(final BubbleLayout bubble) {
+        commandQueue.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                getLayoutScheduler().cancel(bubble);
+                if (bubble.getParent() != null) {
+                    getRenderer().removeBubble(bubble);
+                }
+                bubble.releaseAnimators();
+            }
+        });
+    }
+
+    void setDockingPolicy(BubblesDockingPolicy policy) {
+        if (docking != null) {
+            docking.clear();
+        }
+        docking = policy != null ? new BubblesDocking(policy) : null;
+        if (docking != null) {
+            docking.setOnSlotSizeChangedListener(new BubblesDocking.OnSlotSizeChangedListener() {
+                @Override
+                public void onSlotSizeChanged() {
+                    redockBubbles();
+                }
+            });
+        }
+        for (BubbleLayout bubble : bubbles.getAll()) {
+            bubble.setDockedSlot(BubblesDocking.NO_EDGE, BubblesDocking.NO_SLOT);
+            bubble.setDocking(docking);
+        }
+    }
+
+    private void redockBubbles() {
+        int maxHeight = displayGeometry.getHeight();
+        for (BubbleLayout bubble : bubbles.getAll()) {
+            if (bubble.getDockedEdge() != BubblesDocking.NO_EDGE) {
+                int maxY = maxHeight - bubble.getHeight();
+                int y = BubblesReflow.clamp(docking.getSlotPosition(bubble.getDockedSlot()), 0, maxY);
+                bubble.moveTo(getDockedPosition(bubble, displayGeometry.getWidth()), y, true);
+            }
+        }
+    }
+
+    private int getDockedPosition(BubbleLayout bubble, int displayWidth) {
+        return bubble.getDockedEdge() == BubblesDocking.LEFT_EDGE ? 0 : displayWidth - bubble.getMeasuredWidth();
+    }
+
+    BubblesDisplayGeometry getDisplayGeometry() {
+        return displayGeometry;
+    }
+
+    void setOnBubbleDragListener(OnBubbleDragListener listener) {
+        getLayoutCoordinator().setOnBubbleDragListener(listener);
+    }
+
+    void setSingleWindowMode(boolean enabled) {
+        if (renderer == null) {
+            singleWindowMode = enabled;
+        }
+    }
+
+    void setBubblePoolSize(int poolSize) {
+        bubblesPool.setMaxPoolSize(poolSize);
+    }
+
+    public BubbleLayout obtainBubble(int layoutResourceId) {
+        BubbleLayout bubble = bubblesPool.acquire(layoutResourceId);
+        if (bubble == null) {
+            bubble = inflateBubble(layoutResourceId);
+        }
+        return bubble;
+    }
+
+    private BubbleLayout inflateBubble(int layoutResourceId) {
+        BubbleLayout bubble = (BubbleLayout) LayoutInflater.from(this).inflate(layoutResourceId, null);
+        bubble.setLayoutResourceId(layoutResourceId);
+        return bubble;
+    }
+
+    void preInflateBubbles(int layoutResourceId, int count) {
+        for (int index = 0; index < count; index++) {
+            if (!bubblesPool.release(inflateBubble(layoutResourceId))) {
+                break;
+            }
+        }
+    }
+
+    void preloadAnimators() {
+        animatorCache.preload(R.animator.bubble_shown_animator);
+        animatorCache.preload(R.animator.bubble_down_click_animator);
+        animatorCache.preload(R.animator.bubble_up_click_animator);
+        animatorCache.preload(R.animator.bubble_trash_shown_animator);
+        animatorCache.preload(R.animator.bubble_trash_hide_animator);
+        animatorCache.preload(R.animator.bubble_trash_shown_magnetism_animator);
+        animatorCache.preload(R.animator.bubble_trash_hide_magnetism_animator);
+    }
+
+    public void releaseBubble(BubbleLayout bubble) {
+        recycleBubble(bubble, true);
+    }
+
+    public int addBubble(BubbleLayout bubble, int x, int y) {
+        WindowManager.LayoutParams layoutParams = bubble.getViewParams();
+        if (layoutParams == null) {
+            layoutParams = buildLayoutParamsForBubble(x, y);
+        } else {
+            layoutParams.x = x;
+            layoutParams.y = y;
+        }
         bubble.setWindowManager(getWindowManager());
         bubble.setViewParams(layoutParams);
-        bubble.setLayoutCoordinator(layoutCoordinator);
-        bubbles.add(bubble);
-        addViewToWindow(bubble);
+        bubble.setLayoutCoordinator(getLayoutCoordinator());
+        bubble.setFrameClock(frameClock);
+        bubble.setDisplayGeometry(displayGeometry);
+        bubble.setDefaultHardwareLayersEnabled(hardwareLayersEnabled);
+        bubble.setTouchPredictionEnabled(touchPredictionEnabled, refreshRate);
+        bubble.setDocking(docking);
+        bubble.setAnimatorCache(animatorCache);
+        bubble.setMetrics(metrics);
+        bubble.setRenderer(getRenderer());
+        bubble.setLayoutScheduler(getLayoutScheduler());
+        int bubbleId = bubbles.register(bubble);
+        if (stack != null) {
+            stack.add(bubble);
+        } else {
+            addBubbleToRenderer(bubble);
+        }
+        notifyBubblesInteraction();
+        return bubbleId;
+    }
+
+    public int[] addBubbles(List<BubbleLayout> newBubbles, List<Point> positions,
+                            OnBubblesOperationCallback callback) {
+        if (newBubbles.size() != positions.size()) {
+            throw new IllegalArgumentException("Every bubble needs a position");
+        }
+        int[] bubbleIds = new int[newBubbles.size()];
+        for (int index = 0; index < newBubbles.size(); index++) {
+            Point position = positions.get(index);
+            bubbleIds[index] = addBubble(newBubbles.get(index), position.x, position.y);
+        }
+        commandQueue.enqueueCallback(callback);
+        return bubbleIds;
+    }
+
+    public void removeBubbles(List<BubbleLayout> oldBubbles, OnBubblesOperationCallback callback) {
+        for (BubbleLayout bubble : oldBubbles) {
+            recycleBubble(bubble, false);
+        }
+        commandQueue.enqueueCallback(callback);
+    }
+
+    public void removeAll(OnBubblesOperationCallback callback) {
+        if (stack != null) {
+            stack.clear();
+        }
+        for (BubbleLayout bubble : bubbles.clear()) {
+            undockBubble(bubble);
+            removeBubbleFromScreen(bubble, false);
+        }
+        commandQueue.enqueueCallback(callback);
+    }
+
+    public BubbleLayout getBubble(int bubbleId) {
+        return bubbles.get(bubbleId);
+    }
+
+    public int getBubbleId(BubbleLayout bubble) {
+        return bubbles.getId(bubble);
+    }
+
+    public void updateBubble(int bubbleId, int x, int y) {
+        BubbleLayout bubble = bubbles.get(bubbleId);
+        if (bubble != null) {
+            bubble.getViewParams().x = x;
+            bubble.getViewParams().y = y;
+            bubble.updateViewLayout();
+        }
+    }
+
+    public void bringBubbleToFront(int bubbleId) {
+        final BubbleLayout bubble = bubbles.get(bubbleId);
+        if (bubble != null && bubbles.bringToFront(bubbleId)) {
+            bringBubbleToFrontInRenderer(bubble);
+        }
+    }
+
+    private void bringBubbleToFrontInRenderer(final BubbleLayout bubble) {
+        commandQueue.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                if (bubble.getParent() != null) {
+                    getRenderer().bringBubbleToFront(bubble);
+                }
+            }
+        });
+    }
+
+    public void removeBubble(int bubbleId) {
+        BubbleLayout bubble = bubbles.get(bubbleId);
+        if (bubble != null) {
+            recycleBubble(bubble, false);
+        }
     }
 
     void addTrash(int trashLayoutResourceId) {
         if (trashLayoutResourceId != 0) {
-            bubblesTrash = new BubbleTrashLayout(this);
-            bubblesTrash.setWindowManager(windowManager);
-            bubblesTrash.setViewParams(buildLayoutParamsForTrash());
-            bubblesTrash.setVisibility(View.GONE);
-            LayoutInflater.from(this).inflate(trashLayoutResourceId, bubblesTrash, true);
-            addViewToWindow(bubblesTrash);
-            initializeLayoutCoordinator();
+            addDropTarget(trashLayoutResourceId, DropTarget.DEFAULT_MAGNET_RADIUS, true, null);
+        }
+    }
+
+    void addDropTarget(int layoutResourceId, int magnetRadius,
+                       boolean removesBubble, OnBubbleDropListener listener) {
+        BubbleTrashLayout dropTargetView = new BubbleTrashLayout(this);
+        dropTargetView.setWindowManager(getWindowManager());
+        dropTargetView.setAnimatorCache(animatorCache);
+        dropTargetView.setLayerPromotionEnabled(hardwareLayersEnabled);
+        dropTargetView.setVisibility(View.GONE);
+        LayoutInflater.from(this).inflate(layoutResourceId, dropTargetView, true);
+        dropTargetViews.add(dropTargetView);
+        if (lazyTrashWindow) {
+            dropTargetView.setViewParams(buildLayoutParamsForLazyTrash());
+            dropTargetView.setLazyWindow(trashWindowIdleTimeout, displayGeometry);
+            if (trashWindowPreWarm) {
+                addViewToWindow(dropTargetView);
+            }
+        } else {
+            dropTargetView.setViewParams(buildLayoutParamsForTrash());
+            addViewToWindow(dropTargetView);
+        }
+        getLayoutCoordinator().addDropTarget(new DropTarget(layoutResourceId,
+                dropTargetView, magnetRadius, removesBubble, listener));
+    }
+
+    private BubblesLayoutCoordinator getLayoutCoordinator() {
+        if (layoutCoordinator == null) {
+            layoutCoordinator = new BubblesLayoutCoordinator.Builder(this)
+                    .setMetrics(metrics)
+                    .setStrictMode(strictMode)
+                    .build();
         }
+        return layoutCoordinator;
     }
 
-    private void initializeLayoutCoordinator() {
-        layoutCoordinator = new BubblesLayoutCoordinator.Builder(this)
-                .setWindowManager(getWindowManager())
-                .setTrashView(bubblesTrash)
-                .build();
+    private void addViewToWindow(final BubbleTrashLayout view) {
+        commandQueue.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                view.addToWindow();
+            }
+        });
     }
 
-    private void addViewToWindow(final BubbleBaseLayout view) {
-        new Handler(Looper.getMainLooper()).post(new Runnable() {
+    private void addBubbleToRenderer(final BubbleLayout bubble) {
+        final long enqueueTime = metrics.now();
+        commandQueue.enqueue(new Runnable() {
             @Override
             public void run() {
-                getWindowManager().addView(view, view.getViewParams());
+                metrics.beginSection("Bubbles#addBubble");
+                getRenderer().addBubble(bubble);
+                metrics.recordAddBubble(enqueueTime);
+                metrics.endSection();
             }
         });
     }
@@ -149,8 +685,20 @@ public class BubblesService extends Service {
         return params;
     }
 
+    private WindowManager.LayoutParams buildLayoutParamsForLazyTrash() {
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                        | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
+                PixelFormat.TRANSPARENT);
+        params.gravity = Gravity.TOP | Gravity.START;
+        return params;
+    }
+
     public void removeBubble(BubbleLayout bubble) {
-        recycleBubble(bubble);
+        recycleBubble(bubble, false);
     }
 
     public class BubblesServiceBinder extends Binder {
@@ -0,0 +1,207 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.view.WindowManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BubblesStack implements BubblesFrameClock.FrameCallback {
+    private static final float NANOS_PER_SECOND = 1000000000f;
+    private static final float FOLLOW_TIME_CONSTANT_IN_SECONDS = 0.04f;
+    private static final float MAX_FRAME_TIME_IN_SECONDS = 0.05f;
+    private static final float SETTLE_DISTANCE = 0.5f;
+    private final List<BubbleLayout> members = new ArrayList<>();
+    private final BubblesFrameClock frameClock;
+    private final Host host;
+    private final int maxVisibleBubbles;
+    private final int followerOffset;
+    private final float[] followerX;
+    private final float[] followerY;
+    private boolean running = false;
+    private long lastFrameTimeNanos;
+
+    BubblesStack(BubblesFrameClock frameClock, Host host, int maxVisibleBubbles, int followerOffset) {
+        if (maxVisibleBubbles <= 0) {
+            throw new IllegalArgumentException("Max visible bubbles must be greater than zero");
+        }
+        this.frameClock = frameClock;
+        this.host = host;
+        this.maxVisibleBubbles = maxVisibleBubbles;
+        this.followerOffset = followerOffset;
+        this.followerX = new float[maxVisibleBubbles];
+        this.followerY = new float[maxVisibleBubbles];
+    }
+
+    void add(BubbleLayout bubble) {
+        if (!members.isEmpty()) {
+            WindowManager.LayoutParams topParams = members.get(0).getViewParams();
+            bubble.getViewParams().x = topParams.x;
+            bubble.getViewParams().y = topParams.y;
+        }
+        members.add(0, bubble);
+        bubble.setStack(this);
+        updateTouchable(bubble, true);
+        host.attachBubble(bubble);
+        if (members.size() > maxVisibleBubbles) {
+            host.detachBubble(members.get(maxVisibleBubbles));
+        }
+        for (int index = 1; index < getVisibleCount(); index++) {
+            updateTouchable(members.get(index), false);
+        }
+        start();
+    }
+
+    void remove(BubbleLayout bubble) {
+        int position = members.indexOf(bubble);
+        if (position < 0) {
+            return;
+        }
+        members.remove(position);
+        bubble.setStack(null);
+        updateTouchable(bubble, true);
+        if (position < maxVisibleBubbles && members.size() >= maxVisibleBubbles) {
+            BubbleLayout revealed = members.get(maxVisibleBubbles - 1);
+            WindowManager.LayoutParams anchor = maxVisibleBubbles > 1
+                    ? members.get(maxVisibleBubbles - 2).getViewParams() : bubble.getViewParams();
+            revealed.getViewParams().x = anchor.x;
+            revealed.getViewParams().y = anchor.y;
+            host.attachBubble(revealed);
+            for (int index = maxVisibleBubbles - 2; index >= 0; index--) {
+                host.bringBubbleToFront(members.get(index));
+            }
+        }
+        if (position == 0 && !members.isEmpty()) {
+            updateTouchable(members.get(0), true);
+        }
+        start();
+    }
+
+    List<BubbleLayout> clear() {
+        stop();
+        List<BubbleLayout> oldMembers = new ArrayList<>(members);
+        for (BubbleLayout bubble : oldMembers) {
+            bubble.setStack(null);
+            updateTouchable(bubble, true);
+        }
+        members.clear();
+        return oldMembers;
+    }
+
+    boolean isTop(BubbleLayout bubble) {
+        return !members.isEmpty() && members.get(0) == bubble;
+    }
+
+    void onBubbleMotionStarted(BubbleLayout bubble) {
+        if (isTop(bubble)) {
+            start();
+        }
+    }
+
+    void start() {
+        if (!running && getVisibleCount() > 1) {
+            running = true;
+            lastFrameTimeNanos = 0;
+            for (int index = 1; index < getVisibleCount(); index++) {
+                WindowManager.LayoutParams params = members.get(index).getViewParams();
+                followerX[index] = params.x;
+                followerY[index] = params.y;
+            }
+            frameClock.addCallback(this);
+        }
+    }
+
+    void stop() {
+        running = false;
+        frameClock.removeCallback(this);
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeNanos) {
+        int visibleCount = getVisibleCount();
+        if (visibleCount < 2) {
+            running = false;
+            return false;
+        }
+        float elapsed = lastFrameTimeNanos == 0 ? 0
+                : Math.min(MAX_FRAME_TIME_IN_SECONDS, (frameTimeNanos - lastFrameTimeNanos) / NANOS_PER_SECOND);
+        lastFrameTimeNanos = frameTimeNanos;
+        float factor = (float) (1 - Math.exp(-elapsed / FOLLOW_TIME_CONSTANT_IN_SECONDS));
+        BubbleLayout leader = members.get(0);
+        float leaderX = leader.getViewParams().x;
+        float leaderY = leader.getViewParams().y;
+        boolean settled = leader.isIdle();
+        for (int index = 1; index < visibleCount; index++) {
+            float targetX = leaderX;
+            float targetY = leaderY + followerOffset;
+            followerX[index] += (targetX - followerX[index]) * factor;
+            followerY[index] += (targetY - followerY[index]) * factor;
+            if (Math.abs(targetX - followerX[index]) > SETTLE_DISTANCE
+                    || Math.abs(targetY - followerY[index]) > SETTLE_DISTANCE) {
+                settled = false;
+            } else {
+                followerX[index] = targetX;
+                followerY[index] = targetY;
+            }
+            BubbleLayout follower = members.get(index);
+            int x = Math.round(followerX[index]);
+            int y = Math.round(followerY[index]);
+            if (follower.getViewParams().x != x || follower.getViewParams().y != y) {
+                follower.getViewParams().x = x;
+                follower.getViewParams().y = y;
+                follower.updateViewLayout();
+            }
+            leaderX = followerX[index];
+            leaderY = followerY[index];
+        }
+        running = !settled;
+        return running;
+    }
+
+    private int getVisibleCount() {
+        return Math.min(members.size(), maxVisibleBubbles);
+    }
+
+    private void updateTouchable(BubbleLayout bubble, boolean touchable) {
+        bubble.setTouchable(touchable);
+        WindowManager.LayoutParams params = bubble.getViewParams();
+        int flags = touchable
+                ? params.flags & ~WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                : params.flags | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+        if (flags != params.flags) {
+            params.flags = flags;
+            bubble.updateViewLayout();
+        }
+    }
+
+    interface Host {
+        void attachBubble(BubbleLayout bubble);
+
+        void detachBubble(BubbleLayout bubble);
+
+        void bringBubbleToFront(BubbleLayout bubble);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.view.View;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+final class BubblesStrictMode {
+    private final BubblesFrameClock frameClock;
+    private final Map<View, Long> layoutFrames = new WeakHashMap<>();
+    private final BubblesFrameClock.FrameCallback frameBoundary = new BubblesFrameClock.FrameCallback() {
+        @Override
+        public boolean doFrame(long frameTimeNanos) {
+            return false;
+        }
+    };
+    private boolean enabled = false;
+    private boolean dragging = false;
+
+    BubblesStrictMode(BubblesFrameClock frameClock) {
+        this.frameClock = frameClock;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            dragging = false;
+            layoutFrames.clear();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void onDragStarted() {
+        dragging = enabled;
+    }
+
+    void onDragFinished() {
+        dragging = false;
+    }
+
+    void onWindowLayoutUpdated(View view) {
+        if (enabled) {
+            Long frame = frameClock.getFrameCount();
+            if (frame.equals(layoutFrames.put(view, frame))) {
+                throw new IllegalStateException("Window of " + view.getClass().getSimpleName()
+                        + " laid out more than once in the same frame");
+            }
+            frameClock.addCommitCallback(frameBoundary);
+        }
+    }
+
+    void onAnimatorInflated(int animatorResourceId) {
+        if (enabled && dragging) {
+            throw new IllegalStateException("Animator 0x" + Integer.toHexString(animatorResourceId)
+                    + " inflated while a bubble is being dragged");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+final class BubblesTouchPredictor {
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+    private static final int SAMPLE_COUNT = 4;
+    private static final int MIN_SAMPLE_COUNT = 3;
+    private static final long MAX_SAMPLE_AGE_IN_MS = 50;
+    private static final long MAX_PREDICTION_HORIZON_IN_MS = 32;
+    private static final float MIN_SPEED_IN_PX_PER_MS = 0.3f;
+    private final float[] samplesX = new float[SAMPLE_COUNT];
+    private final float[] samplesY = new float[SAMPLE_COUNT];
+    private final long[] sampleTimes = new long[SAMPLE_COUNT];
+    private final float maxPredictionDistance;
+    private float predictionHorizonInMs = 1000f / DEFAULT_REFRESH_RATE;
+    private int newest = 0;
+    private int size = 0;
+    private float predictedX;
+    private float predictedY;
+
+    BubblesTouchPredictor(float maxPredictionDistance) {
+        if (maxPredictionDistance <= 0) {
+            throw new IllegalArgumentException("Max prediction distance must be greater than zero");
+        }
+        this.maxPredictionDistance = maxPredictionDistance;
+    }
+
+    void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            predictionHorizonInMs = 1000f / refreshRate;
+        }
+    }
+
+    float getPredictionHorizon() {
+        return predictionHorizonInMs;
+    }
+
+    void reset() {
+        newest = 0;
+        size = 0;
+    }
+
+    void addSample(float x, float y, long timeInMs) {
+        if (size > 0 && timeInMs <= sampleTimes[newest]) {
+            samplesX[newest] = x;
+            samplesY[newest] = y;
+            return;
+        }
+        newest = (newest + 1) % SAMPLE_COUNT;
+        samplesX[newest] = x;
+        samplesY[newest] = y;
+        sampleTimes[newest] = timeInMs;
+        size = Math.min(size + 1, SAMPLE_COUNT);
+    }
+
+    boolean predict() {
+        if (size < MIN_SAMPLE_COUNT) {
+            return false;
+        }
+        long newestTime = sampleTimes[newest];
+        int oldest = newest;
+        int count = 1;
+        for (int age = 1; age < size; age++) {
+            int sample = getSampleIndex(age);
+            if (newestTime - sampleTimes[sample] > MAX_SAMPLE_AGE_IN_MS) {
+                break;
+            }
+            oldest = sample;
+            count++;
+        }
+        if (count < MIN_SAMPLE_COUNT) {
+            return false;
+        }
+        float elapsed = newestTime - sampleTimes[oldest];
+        float velocityX = (samplesX[newest] - samplesX[oldest]) / elapsed;
+        float velocityY = (samplesY[newest] - samplesY[oldest]) / elapsed;
+        int previous = getSampleIndex(1);
+        float lastElapsed = newestTime - sampleTimes[previous];
+        float lastVelocityX = (samplesX[newest] - samplesX[previous]) / lastElapsed;
+        float lastVelocityY = (samplesY[newest] - samplesY[previous]) / lastElapsed;
+        if ((velocityX * lastVelocityX) + (velocityY * lastVelocityY) <= 0) {
+            return false;
+        }
+        float speed = (float) Math.hypot(velocityX, velocityY);
+        if (speed < MIN_SPEED_IN_PX_PER_MS) {
+            return false;
+        }
+        float distance = speed * Math.min(predictionHorizonInMs, MAX_PREDICTION_HORIZON_IN_MS);
+        float scale = Math.min(distance, maxPredictionDistance) / speed;
+        predictedX = samplesX[newest] + (velocityX * scale);
+        predictedY = samplesY[newest] + (velocityY * scale);
+        return true;
+    }
+
+    float getPredictedX() {
+        return predictedX;
+    }
+
+    float getPredictedY() {
+        return predictedY;
+    }
+
+    private int getSampleIndex(int age) {
+        return (newest - age + SAMPLE_COUNT) % SAMPLE_COUNT;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.view.View;
+
+final class DropTarget {
+    static final int DEFAULT_MAGNET_RADIUS = -1;
+    private final int id;
+    private final BubbleTrashLayout view;
+    private final int magnetRadius;
+    private final boolean removesBubble;
+    private final OnBubbleDropListener listener;
+
+    DropTarget(int id, BubbleTrashLayout view, int magnetRadius,
+               boolean removesBubble, OnBubbleDropListener listener) {
+        this.id = id;
+        this.view = view;
+        this.magnetRadius = magnetRadius;
+        this.removesBubble = removesBubble;
+        this.listener = listener;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    BubbleTrashLayout getView() {
+        return view;
+    }
+
+    View getContent() {
+        return view.getChildAt(0);
+    }
+
+    int getMagnetRadius() {
+        if (magnetRadius == DEFAULT_MAGNET_RADIUS) {
+            View content = getContent();
+            return Math.max(content.getMeasuredWidth(), content.getMeasuredHeight()) / 2;
+        }
+        return magnetRadius;
+    }
+
+    boolean removesBubble() {
+        return removesBubble;
+    }
+
+    void notifyBubbleDropped(BubbleLayout bubble) {
+        if (listener != null) {
+            listener.onBubbleDropped(bubble, id);
+        }
+    }
+}
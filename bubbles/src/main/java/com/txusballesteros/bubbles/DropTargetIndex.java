@@ -0,0 +1,156 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import java.util.Arrays;
+
+final class DropTargetIndex {
+    static final int NO_TARGET = -1;
+    private static final int DEFAULT_CELL_SIZE = 128;
+    private static final int[] EMPTY_CELL = new int[0];
+    private final int cellSize;
+    private int[] lefts = new int[4];
+    private int[] tops = new int[4];
+    private int[] rights = new int[4];
+    private int[] bottoms = new int[4];
+    private int count = 0;
+    private int columns = 0;
+    private int rows = 0;
+    private int[][] cells = new int[0][];
+
+    DropTargetIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    DropTargetIndex(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be greater than zero");
+        }
+        this.cellSize = cellSize;
+    }
+
+    void clear() {
+        count = 0;
+        columns = 0;
+        rows = 0;
+        cells = new int[0][];
+    }
+
+    int add(int left, int top, int right, int bottom) {
+        if (count == lefts.length) {
+            int capacity = count * 2;
+            lefts = Arrays.copyOf(lefts, capacity);
+            tops = Arrays.copyOf(tops, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            bottoms = Arrays.copyOf(bottoms, capacity);
+        }
+        lefts[count] = left;
+        tops[count] = top;
+        rights[count] = right;
+        bottoms[count] = bottom;
+        return count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void build() {
+        int maxRight = 0;
+        int maxBottom = 0;
+        for (int target = 0; target < count; target++) {
+            maxRight = Math.max(maxRight, rights[target]);
+            maxBottom = Math.max(maxBottom, bottoms[target]);
+        }
+        columns = (maxRight / cellSize) + 1;
+        rows = (maxBottom / cellSize) + 1;
+        cells = new int[columns * rows][];
+        Arrays.fill(cells, EMPTY_CELL);
+        for (int target = 0; target < count; target++) {
+            if (rights[target] < 0 || bottoms[target] < 0) {
+                continue;
+            }
+            int firstColumn = Math.max(0, lefts[target]) / cellSize;
+            int lastColumn = rights[target] / cellSize;
+            int firstRow = Math.max(0, tops[target]) / cellSize;
+            int lastRow = bottoms[target] / cellSize;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int cell = (row * columns) + column;
+                    int[] targets = Arrays.copyOf(cells[cell], cells[cell].length + 1);
+                    targets[targets.length - 1] = target;
+                    cells[cell] = targets;
+                }
+            }
+        }
+    }
+
+    int find(int x, int y) {
+        if (x < 0 || y < 0) {
+            return NO_TARGET;
+        }
+        int column = x / cellSize;
+        int row = y / cellSize;
+        if (column >= columns || row >= rows) {
+            return NO_TARGET;
+        }
+        int result = NO_TARGET;
+        long bestDistance = Long.MAX_VALUE;
+        int[] targets = cells[(row * columns) + column];
+        for (int candidate : targets) {
+            if (contains(candidate, x, y)) {
+                long distance = getDistanceToCenter(candidate, x, y);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    result = candidate;
+                }
+            }
+        }
+        return result;
+    }
+
+    boolean contains(int target, int x, int y) {
+        return contains(target, x, y, 0);
+    }
+
+    boolean contains(int target, int x, int y, int margin) {
+        return x >= lefts[target] - margin && x <= rights[target] + margin
+                && y >= tops[target] - margin && y <= bottoms[target] + margin;
+    }
+
+    int getCenterX(int target) {
+        return (lefts[target] + rights[target]) / 2;
+    }
+
+    int getCenterY(int target) {
+        return (tops[target] + bottoms[target]) / 2;
+    }
+
+    private long getDistanceToCenter(int target, int x, int y) {
+        long deltaX = x - getCenterX(target);
+        long deltaY = y - getCenterY(target);
+        return (deltaX * deltaX) + (deltaY * deltaY);
+    }
+}
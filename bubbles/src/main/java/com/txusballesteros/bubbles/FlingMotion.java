@@ -0,0 +1,84 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+final class FlingMotion implements Motion {
+    static final float DEFAULT_FRICTION = 4.2f;
+    private static final float NANOS_PER_SECOND = 1000000000f;
+    private static final float VELOCITY_THRESHOLD = 1f;
+    private final float friction;
+    private float initialPosition;
+    private float initialVelocity;
+    private long startTimeNanos;
+
+    FlingMotion() {
+        this(DEFAULT_FRICTION);
+    }
+
+    FlingMotion(float friction) {
+        if (friction <= 0) {
+            throw new IllegalArgumentException("Fling friction must be greater than zero");
+        }
+        this.friction = friction;
+    }
+
+    void start(float from, float velocity, long timeNanos) {
+        this.initialPosition = from;
+        this.initialVelocity = velocity;
+        this.startTimeNanos = timeNanos;
+    }
+
+    float getFinalPosition() {
+        return initialPosition + (initialVelocity / friction);
+    }
+
+    long getDurationNanos() {
+        float speed = Math.abs(initialVelocity);
+        if (speed <= VELOCITY_THRESHOLD) {
+            return 0;
+        }
+        return (long) (Math.log(speed / VELOCITY_THRESHOLD) / friction * NANOS_PER_SECOND);
+    }
+
+    @Override
+    public float getPosition(long timeNanos) {
+        double decay = Math.exp(-friction * getElapsedSeconds(timeNanos));
+        return (float) (initialPosition + (initialVelocity / friction) * (1 - decay));
+    }
+
+    @Override
+    public float getVelocity(long timeNanos) {
+        return (float) (initialVelocity * Math.exp(-friction * getElapsedSeconds(timeNanos)));
+    }
+
+    @Override
+    public boolean isFinished(long timeNanos) {
+        return Math.abs(getVelocity(timeNanos)) < VELOCITY_THRESHOLD;
+    }
+
+    private float getElapsedSeconds(long timeNanos) {
+        return Math.max(0, timeNanos - startTimeNanos) / NANOS_PER_SECOND;
+    }
+}
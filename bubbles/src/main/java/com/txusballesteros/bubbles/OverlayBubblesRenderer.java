@@ -0,0 +1,407 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.content.Context;
+import android.graphics.PixelFormat;
+import android.view.Gravity;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class OverlayBubblesRenderer implements BubblesRenderer, BubblesFrameClock.FrameCallback {
+    private final Context context;
+    private final WindowManager windowManager;
+    private final BubblesFrameClock frameClock;
+    private final List<Host> hosts = new ArrayList<>();
+    private final Map<BubbleLayout, Host> bubbleHosts = new HashMap<>();
+    private final List<BubbleLayout> bubbles = new ArrayList<>();
+    private final List<BubbleLayout> movingBubbles = new ArrayList<>();
+    private final List<BubbleLayout> draggingBubbles = new ArrayList<>();
+    private boolean batching = false;
+    private boolean boundsInvalidated = false;
+
+    OverlayBubblesRenderer(Context context, WindowManager windowManager, BubblesFrameClock frameClock) {
+        this.context = context;
+        this.windowManager = windowManager;
+        this.frameClock = frameClock;
+    }
+
+    @Override
+    public void addBubble(BubbleLayout bubble) {
+        bubbles.add(bubble);
+        int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        bubble.measure(unspecified, unspecified);
+        updateHosts();
+    }
+
+    @Override
+    public void removeBubble(BubbleLayout bubble) {
+        bubbles.remove(bubble);
+        movingBubbles.remove(bubble);
+        draggingBubbles.remove(bubble);
+        Host host = bubbleHosts.remove(bubble);
+        if (host != null) {
+            host.removeBubble(bubble);
+            if (host.isEmpty()) {
+                host.detach();
+                hosts.remove(host);
+            }
+        }
+        if (bubbles.isEmpty()) {
+            release();
+        } else {
+            updateHosts();
+        }
+    }
+
+    @Override
+    public void updateBubble(BubbleLayout bubble) {
+        Host host = bubbleHosts.get(bubble);
+        if (host != null && host.contains(bubble)) {
+            host.positionBubble(bubble);
+        } else {
+            updateHosts();
+        }
+    }
+
+    @Override
+    public void bringBubbleToFront(BubbleLayout bubble) {
+        if (bubbles.remove(bubble)) {
+            bubbles.add(bubble);
+            Host host = bubbleHosts.get(bubble);
+            if (host != null) {
+                host.view.bringChildToFront(bubble);
+            }
+        }
+    }
+
+    @Override
+    public void onBubbleMotionStarted(BubbleLayout bubble) {
+        if (!movingBubbles.contains(bubble)) {
+            movingBubbles.add(bubble);
+            invalidateHosts();
+        }
+    }
+
+    @Override
+    public void onBubbleMotionFinished(BubbleLayout bubble) {
+        if (movingBubbles.remove(bubble)) {
+            invalidateHosts();
+        }
+    }
+
+    @Override
+    public void onBubbleDragStarted(BubbleLayout bubble) {
+        if (!draggingBubbles.contains(bubble)) {
+            draggingBubbles.add(bubble);
+            invalidateHosts();
+        }
+    }
+
+    @Override
+    public void onBubbleDragFinished(BubbleLayout bubble) {
+        if (draggingBubbles.remove(bubble)) {
+            invalidateHosts();
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        batching = true;
+    }
+
+    @Override
+    public void endBatch() {
+        batching = false;
+        if (boundsInvalidated && !bubbles.isEmpty()) {
+            updateHosts();
+        }
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeNanos) {
+        if (boundsInvalidated && !bubbles.isEmpty()) {
+            updateHosts();
+        }
+        return false;
+    }
+
+    @Override
+    public void release() {
+        frameClock.removeCallback(this);
+        for (Host host : hosts) {
+            host.detach();
+        }
+        hosts.clear();
+    }
+
+    private void invalidateHosts() {
+        boundsInvalidated = true;
+        frameClock.addCommitCallback(this);
+    }
+
+    private void updateHosts() {
+        if (batching) {
+            boundsInvalidated = true;
+            return;
+        }
+        boundsInvalidated = false;
+        List<Cluster> clusters = buildClusters();
+        List<Host> unusedHosts = new ArrayList<>(hosts);
+        for (Cluster cluster : clusters) {
+            unusedHosts.remove(cluster.host);
+        }
+        for (Cluster cluster : clusters) {
+            if (cluster.host == null) {
+                cluster.host = takeBestHost(cluster, unusedHosts);
+            }
+            if (cluster.host == null) {
+                cluster.host = new Host();
+                hosts.add(cluster.host);
+            }
+            for (BubbleLayout bubble : cluster.bubbles) {
+                moveToHost(bubble, cluster.host);
+            }
+        }
+        for (Host host : unusedHosts) {
+            host.detach();
+            hosts.remove(host);
+        }
+        for (Cluster cluster : clusters) {
+            cluster.host.setBounds(cluster);
+        }
+    }
+
+    private List<Cluster> buildClusters() {
+        List<Cluster> clusters = new ArrayList<>();
+        for (BubbleLayout bubble : bubbles) {
+            Host host = bubbleHosts.get(bubble);
+            boolean pinned = host != null
+                    && (movingBubbles.contains(bubble) || draggingBubbles.contains(bubble));
+            Cluster cluster = pinned ? findCluster(clusters, host) : null;
+            if (cluster == null) {
+                cluster = new Cluster(pinned ? host : null);
+                clusters.add(cluster);
+            }
+            cluster.add(bubble, draggingBubbles.contains(bubble));
+        }
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int index = 0; index < clusters.size() && !merged; index++) {
+                Cluster cluster = clusters.get(index);
+                for (int otherIndex = index + 1; otherIndex < clusters.size() && !merged; otherIndex++) {
+                    if (cluster.canMerge(clusters.get(otherIndex))) {
+                        cluster.merge(clusters.remove(otherIndex));
+                        merged = true;
+                    }
+                }
+            }
+        }
+        return clusters;
+    }
+
+    private Cluster findCluster(List<Cluster> clusters, Host host) {
+        for (Cluster cluster : clusters) {
+            if (cluster.host == host) {
+                return cluster;
+            }
+        }
+        return null;
+    }
+
+    private Host takeBestHost(Cluster cluster, List<Host> unusedHosts) {
+        Host bestHost = null;
+        int bestCount = 0;
+        for (Host host : unusedHosts) {
+            int count = 0;
+            for (BubbleLayout bubble : cluster.bubbles) {
+                if (bubbleHosts.get(bubble) == host) {
+                    count++;
+                }
+            }
+            if (count > bestCount) {
+                bestHost = host;
+                bestCount = count;
+            }
+        }
+        unusedHosts.remove(bestHost);
+        return bestHost;
+    }
+
+    private void moveToHost(BubbleLayout bubble, Host host) {
+        Host currentHost = bubbleHosts.get(bubble);
+        if (currentHost != host) {
+            if (currentHost != null) {
+                currentHost.removeBubble(bubble);
+                bubble.skipNextShowAnimation();
+            }
+            host.addBubble(bubble);
+            bubbleHosts.put(bubble, host);
+        }
+    }
+
+    private static final class Cluster {
+        private final List<BubbleLayout> bubbles = new ArrayList<>();
+        private Host host;
+        private boolean fullScreen = false;
+        private int left = Integer.MAX_VALUE;
+        private int top = Integer.MAX_VALUE;
+        private int right = Integer.MIN_VALUE;
+        private int bottom = Integer.MIN_VALUE;
+
+        Cluster(Host host) {
+            this.host = host;
+        }
+
+        void add(BubbleLayout bubble, boolean dragging) {
+            bubbles.add(bubble);
+            fullScreen |= dragging;
+            WindowManager.LayoutParams params = bubble.getViewParams();
+            include(params.x, params.y, bubble);
+            if (bubble.isMoveAnimationRunning()) {
+                include(bubble.getMoveDestinationX(), bubble.getMoveDestinationY(), bubble);
+            }
+        }
+
+        boolean canMerge(Cluster other) {
+            return (host == null || other.host == null)
+                    && left <= other.right && other.left <= right
+                    && top <= other.bottom && other.top <= bottom;
+        }
+
+        void merge(Cluster other) {
+            bubbles.addAll(other.bubbles);
+            if (host == null) {
+                host = other.host;
+            }
+            fullScreen |= other.fullScreen;
+            left = Math.min(left, other.left);
+            top = Math.min(top, other.top);
+            right = Math.max(right, other.right);
+            bottom = Math.max(bottom, other.bottom);
+        }
+
+        private void include(int x, int y, BubbleLayout bubble) {
+            left = Math.min(left, x);
+            top = Math.min(top, y);
+            right = Math.max(right, x + bubble.getMeasuredWidth());
+            bottom = Math.max(bottom, y + bubble.getMeasuredHeight());
+        }
+    }
+
+    private final class Host {
+        private final FrameLayout view = new FrameLayout(context);
+        private final WindowManager.LayoutParams params = buildLayoutParamsForHost();
+        private boolean attached = false;
+
+        void addBubble(BubbleLayout bubble) {
+            view.addView(bubble, new FrameLayout.LayoutParams(
+                    FrameLayout.LayoutParams.WRAP_CONTENT,
+                    FrameLayout.LayoutParams.WRAP_CONTENT,
+                    Gravity.TOP | Gravity.START));
+        }
+
+        void removeBubble(BubbleLayout bubble) {
+            view.removeView(bubble);
+        }
+
+        boolean isEmpty() {
+            return view.getChildCount() == 0;
+        }
+
+        boolean contains(BubbleLayout bubble) {
+            if (params.width == WindowManager.LayoutParams.MATCH_PARENT) {
+                return true;
+            }
+            WindowManager.LayoutParams bubbleParams = bubble.getViewParams();
+            return bubbleParams.x >= params.x
+                    && bubbleParams.y >= params.y
+                    && bubbleParams.x + bubble.getMeasuredWidth() <= params.x + params.width
+                    && bubbleParams.y + bubble.getMeasuredHeight() <= params.y + params.height;
+        }
+
+        void setBounds(Cluster cluster) {
+            int previousX = params.x;
+            int previousY = params.y;
+            int previousWidth = params.width;
+            int previousHeight = params.height;
+            if (cluster.fullScreen) {
+                params.x = 0;
+                params.y = 0;
+                params.width = WindowManager.LayoutParams.MATCH_PARENT;
+                params.height = WindowManager.LayoutParams.MATCH_PARENT;
+            } else {
+                params.x = cluster.left;
+                params.y = cluster.top;
+                params.width = cluster.right - cluster.left;
+                params.height = cluster.bottom - cluster.top;
+            }
+            boolean boundsChanged = previousX != params.x || previousY != params.y
+                    || previousWidth != params.width || previousHeight != params.height;
+            if (!attached) {
+                windowManager.addView(view, params);
+                attached = true;
+            } else if (boundsChanged) {
+                windowManager.updateViewLayout(view, params);
+            }
+            for (BubbleLayout bubble : cluster.bubbles) {
+                positionBubble(bubble);
+            }
+        }
+
+        void positionBubble(BubbleLayout bubble) {
+            WindowManager.LayoutParams bubbleParams = bubble.getViewParams();
+            bubble.setTranslationX(bubbleParams.x - params.x);
+            bubble.setTranslationY(bubbleParams.y - params.y);
+        }
+
+        void detach() {
+            if (attached) {
+                windowManager.removeView(view);
+                attached = false;
+            }
+        }
+    }
+
+    private static WindowManager.LayoutParams buildLayoutParamsForHost() {
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.TYPE_PHONE,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                        | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL
+                        | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
+                PixelFormat.TRANSPARENT);
+        params.gravity = Gravity.TOP | Gravity.START;
+        return params;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+final class SpringMotion implements Motion {
+    static final float DEFAULT_STIFFNESS = 700f;
+    static final float DEFAULT_DAMPING_RATIO = 1f;
+    private static final float NANOS_PER_SECOND = 1000000000f;
+    private static final float DISPLACEMENT_THRESHOLD = 0.5f;
+    private static final float VELOCITY_THRESHOLD = 1f;
+    private final float naturalFrequency;
+    private final float dampingRatio;
+    private final float dampedFrequency;
+    private float target;
+    private float initialDisplacement;
+    private float initialVelocity;
+    private long startTimeNanos;
+
+    SpringMotion() {
+        this(DEFAULT_STIFFNESS, DEFAULT_DAMPING_RATIO);
+    }
+
+    SpringMotion(float stiffness, float dampingRatio) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("Spring stiffness must be greater than zero");
+        }
+        if (dampingRatio < 0) {
+            throw new IllegalArgumentException("Spring damping ratio can't be negative");
+        }
+        this.naturalFrequency = (float) Math.sqrt(stiffness);
+        this.dampingRatio = dampingRatio;
+        this.dampedFrequency = naturalFrequency * (float) Math.sqrt(Math.abs(1 - dampingRatio * dampingRatio));
+    }
+
+    void start(float from, float to, float velocity, long timeNanos) {
+        this.target = to;
+        this.initialDisplacement = from - to;
+        this.initialVelocity = velocity;
+        this.startTimeNanos = timeNanos;
+    }
+
+    void startWithoutOvershoot(float from, float to, float velocity, long timeNanos) {
+        float displacement = from - to;
+        if (dampingRatio >= 1 && velocity * displacement < 0) {
+            float maxVelocity = naturalFrequency * Math.abs(displacement);
+            if (Math.abs(velocity) > maxVelocity) {
+                velocity = Math.signum(velocity) * maxVelocity;
+            }
+        }
+        start(from, to, velocity, timeNanos);
+    }
+
+    float getTarget() {
+        return target;
+    }
+
+    @Override
+    public float getPosition(long timeNanos) {
+        return target + getDisplacement(getElapsedSeconds(timeNanos));
+    }
+
+    @Override
+    public float getVelocity(long timeNanos) {
+        double t = getElapsedSeconds(timeNanos);
+        double w = naturalFrequency;
+        double z = dampingRatio;
+        double d0 = initialDisplacement;
+        double v0 = initialVelocity;
+        double velocity;
+        if (z < 1) {
+            double a = d0;
+            double b = (v0 + z * w * d0) / dampedFrequency;
+            double cos = Math.cos(dampedFrequency * t);
+            double sin = Math.sin(dampedFrequency * t);
+            velocity = Math.exp(-z * w * t)
+                    * (-z * w * (a * cos + b * sin) + dampedFrequency * (b * cos - a * sin));
+        } else if (z == 1) {
+            double b = v0 + w * d0;
+            velocity = Math.exp(-w * t) * (b - w * (d0 + b * t));
+        } else {
+            double r1 = -w * (z - Math.sqrt(z * z - 1));
+            double r2 = -w * (z + Math.sqrt(z * z - 1));
+            double c2 = (v0 - r1 * d0) / (r2 - r1);
+            double c1 = d0 - c2;
+            velocity = c1 * r1 * Math.exp(r1 * t) + c2 * r2 * Math.exp(r2 * t);
+        }
+        return (float) velocity;
+    }
+
+    @Override
+    public boolean isFinished(long timeNanos) {
+        float t = getElapsedSeconds(timeNanos);
+        return Math.abs(getDisplacement(t)) < DISPLACEMENT_THRESHOLD
+                && Math.abs(getVelocity(timeNanos)) < VELOCITY_THRESHOLD;
+    }
+
+    private float getDisplacement(float t) {
+        double w = naturalFrequency;
+        double z = dampingRatio;
+        double d0 = initialDisplacement;
+        double v0 = initialVelocity;
+        double displacement;
+        if (z < 1) {
+            double b = (v0 + z * w * d0) / dampedFrequency;
+            displacement = Math.exp(-z * w * t)
+                    * (d0 * Math.cos(dampedFrequency * t) + b * Math.sin(dampedFrequency * t));
+        } else if (z == 1) {
+            displacement = (d0 + (v0 + w * d0) * t) * Math.exp(-w * t);
+        } else {
+            double r1 = -w * (z - Math.sqrt(z * z - 1));
+            double r2 = -w * (z + Math.sqrt(z * z - 1));
+            double c2 = (v0 - r1 * d0) / (r2 - r1);
+            double c1 = d0 - c2;
+            displacement = c1 * Math.exp(r1 * t) + c2 * Math.exp(r2 * t);
+        }
+        return (float) displacement;
+    }
+
+    private float getElapsedSeconds(long timeNanos) {
+        return Math.max(0, timeNanos - startTimeNanos) / NANOS_PER_SECOND;
+    }
+}
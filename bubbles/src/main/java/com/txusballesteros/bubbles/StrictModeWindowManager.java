@@ -0,0 +1,66 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.view.Display;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+
+final class StrictModeWindowManager implements WindowManager {
+    private final WindowManager windowManager;
+    private final BubblesStrictMode strictMode;
+
+    StrictModeWindowManager(WindowManager windowManager, BubblesStrictMode strictMode) {
+        this.windowManager = windowManager;
+        this.strictMode = strictMode;
+    }
+
+    @Override
+    public Display getDefaultDisplay() {
+        return windowManager.getDefaultDisplay();
+    }
+
+    @Override
+    public void addView(View view, ViewGroup.LayoutParams params) {
+        windowManager.addView(view, params);
+    }
+
+    @Override
+    public void updateViewLayout(View view, ViewGroup.LayoutParams params) {
+        strictMode.onWindowLayoutUpdated(view);
+        windowManager.updateViewLayout(view, params);
+    }
+
+    @Override
+    public void removeView(View view) {
+        windowManager.removeView(view);
+    }
+
+    @Override
+    public void removeViewImmediate(View view) {
+        windowManager.removeViewImmediate(view);
+    }
+}
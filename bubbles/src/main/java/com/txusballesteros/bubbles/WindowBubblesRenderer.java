@@ -0,0 +1,78 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.view.WindowManager;
+
+final class WindowBubblesRenderer implements BubblesRenderer {
+    private final WindowManager windowManager;
+
+    WindowBubblesRenderer(WindowManager windowManager) {
+        this.windowManager = windowManager;
+    }
+
+    @Override
+    public void addBubble(BubbleLayout bubble) {
+        windowManager.addView(bubble, bubble.getViewParams());
+    }
+
+    @Override
+    public void removeBubble(BubbleLayout bubble) {
+        windowManager.removeView(bubble);
+    }
+
+    @Override
+    public void updateBubble(BubbleLayout bubble) {
+        windowManager.updateViewLayout(bubble, bubble.getViewParams());
+    }
+
+    @Override
+    public void bringBubbleToFront(BubbleLayout bubble) {
+        bubble.skipNextShowAnimation();
+        windowManager.removeViewImmediate(bubble);
+        windowManager.addView(bubble, bubble.getViewParams());
+    }
+
+    @Override
+    public void onBubbleMotionStarted(BubbleLayout bubble) { }
+
+    @Override
+    public void onBubbleMotionFinished(BubbleLayout bubble) { }
+
+    @Override
+    public void onBubbleDragStarted(BubbleLayout bubble) { }
+
+    @Override
+    public void onBubbleDragFinished(BubbleLayout bubble) { }
+
+    @Override
+    public void beginBatch() { }
+
+    @Override
+    public void endBatch() { }
+
+    @Override
+    public void release() { }
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.content.ComponentCallbacks2;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class BubblesFrameBudgetTest {
+    private static final int BUBBLE_SIZE = 100;
+    private static final int TRASH_SIZE = 100;
+    private static final int PRELOADED_ANIMATOR_COUNT = 7;
+    private RecordingBubblesService service;
+    private ManualFrameScheduler frames;
+    private RecordingWindowManager windows;
+
+    @Before
+    public void setUp() {
+        service = Robolectric.buildService(RecordingBubblesService.class).attach().create().get();
+        frames = service.getFrames();
+        windows = service.getWindows();
+    }
+
+    @After
+    public void tearDown() {
+        service.onDestroy();
+    }
+
+    @Test
+    public void shouldPreloadAnimatorsWhenStrictModeIsEnabled() {
+        configure(false);
+
+        assertEquals(PRELOADED_ANIMATOR_COUNT, getInflatedAnimatorCount());
+    }
+
+    @Test
+    public void shouldLayOutDraggedBubbleAtMostOncePerFrame() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+
+        drag(bubble, 300, 150);
+
+        assertTrue(windows.getLayoutCount(bubble) > 0);
+        assertEquals(1, windows.getMaxLayoutsPerFrame(bubble));
+    }
+
+    @Test
+    public void shouldNotInflateAnimatorsWhileDragging() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+        long inflatedAnimators = getInflatedAnimatorCount();
+
+        drag(bubble, 300, 150);
+
+        assertEquals(inflatedAnimators, getInflatedAnimatorCount());
+    }
+
+    @Test
+    public void shouldNotInflateAnimatorsWhileDraggingAfterMemoryTrim() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+        service.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        long inflatedAnimators = getInflatedAnimatorCount();
+
+        drag(bubble, 300, 150);
+
+        assertEquals(inflatedAnimators, getInflatedAnimatorCount());
+    }
+
+    @Test
+    public void shouldKeepResourcesWhenUiIsHidden() {
+        configure(false);
+        addBubble(0, 200);
+        long inflatedAnimators = getInflatedAnimatorCount();
+
+        service.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertEquals(inflatedAnimators, getInflatedAnimatorCount());
+        assertTrue(getTrash() != null);
+    }
+
+    @Test
+    public void shouldKeepAnimatorsAndTrashUnderModeratePressure() {
+        configure(false);
+        addBubble(0, 200);
+        long inflatedAnimators = getInflatedAnimatorCount();
+
+        service.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+        assertEquals(inflatedAnimators, getInflatedAnimatorCount());
+        assertTrue(getTrash() != null);
+    }
+
+    @Test
+    public void shouldFreeDockingSlotsOnRemoveAll() {
+        service.setDockingPolicy(new BubblesDockingPolicy.Builder()
+                .setMaxBubblesPerEdge(1)
+                .build());
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+        drag(bubble, 60, 0);
+        assertEquals(BubblesDocking.LEFT_EDGE, bubble.getDockedEdge());
+
+        service.removeAll(null);
+        ShadowLooper.runUiThreadTasks();
+        BubbleLayout newBubble = addBubble(0, 200);
+        drag(newBubble, 60, 0);
+
+        assertEquals(BubblesDocking.LEFT_EDGE, newBubble.getDockedEdge());
+        assertEquals(0, newBubble.getViewParams().x);
+        assertEquals(BubblesDocking.NO_EDGE, bubble.getDockedEdge());
+    }
+
+    @Test
+    public void shouldNotRelayoutOnTap() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+
+        new GestureDriver(bubble, frames).tap(10, 210);
+        frames.runUntilIdle();
+
+        assertEquals(0, windows.getLayoutCount());
+    }
+
+    @Test
+    public void shouldKeepFlingAcrossScreenWithinFrameBudget() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+        int displayWidth = service.getDisplayGeometry().getWidth();
+
+        fling(bubble, displayWidth / 2, 0);
+
+        assertEquals(1, windows.getMaxLayoutsPerFrame(bubble));
+        assertEquals(displayWidth - BUBBLE_SIZE, bubble.getViewParams().x);
+    }
+
+    @Test
+    public void shouldKeepDropOnTrashWithinFrameBudget() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+
+        dragToTrash(bubble);
+
+        assertTrue(windows.getMaxLayoutsPerFrame() <= 1);
+        assertEquals(BubblesRegistry.NO_ID, service.getBubbleId(bubble));
+        assertFalse(windows.getWindows().contains(bubble));
+    }
+
+    @Test
+    public void shouldKeepTrashMagnetismWithinFrameBudget() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+        GestureDriver gesture = startDrag(bubble);
+        moveToTrash(bubble, gesture);
+        assertEquals(getTrashCenterX(), bubble.getViewParams().x + (BUBBLE_SIZE / 2));
+
+        gesture.moveBy(-2 * TRASH_SIZE, -2 * TRASH_SIZE, 10, 2);
+        gesture.up();
+        frames.runUntilIdle();
+
+        assertTrue(windows.getMaxLayoutsPerFrame() <= 1);
+        assertTrue(windows.getWindows().contains(bubble));
+        assertEquals(0, bubble.getViewParams().x);
+    }
+
+    @Test
+    public void shouldKeepOverlayHostWithinFrameBudget() {
+        configure(true);
+        BubbleLayout bubble = addBubble(0, 200);
+        addBubble(0, 400);
+
+        drag(bubble, 300, 150);
+
+        assertTrue(windows.getMaxLayoutsPerFrame() <= 1);
+    }
+
+    @Test
+    public void shouldNotRelayoutOverlayHostOnTap() {
+        configure(true);
+        BubbleLayout bubble = addBubble(0, 200);
+
+        new GestureDriver(bubble, frames).tap(10, 210);
+        frames.runUntilIdle();
+
+        assertEquals(0, windows.getLayoutCount());
+    }
+
+    @Test
+    public void shouldKeepOverlayDropOnTrashWithinFrameBudget() {
+        configure(true);
+        BubbleLayout bubble = addBubble(0, 200);
+        addBubble(0, 400);
+
+        dragToTrash(bubble);
+
+        assertTrue(windows.getMaxLayoutsPerFrame() <= 1);
+        assertEquals(BubblesRegistry.NO_ID, service.getBubbleId(bubble));
+        assertEquals(null, bubble.getParent());
+    }
+
+    @Test
+    public void shouldShareOverlayHostBetweenTouchingBubbles() {
+        configure(true);
+        addBubble(0, 200);
+        addBubble(0, 250);
+
+        assertEquals(1, getOverlayHosts().size());
+    }
+
+    @Test
+    public void shouldSplitOverlayHostBetweenWalls() {
+        configure(true);
+        addBubble(0, 200);
+        addBubble(service.getDisplayGeometry().getWidth() - BUBBLE_SIZE, 200);
+
+        List<View> hosts = getOverlayHosts();
+        assertEquals(2, hosts.size());
+        for (View host : hosts) {
+            assertEquals(BUBBLE_SIZE, host.getLayoutParams().width);
+        }
+    }
+
+    @Test
+    public void shouldSplitOverlayHostAfterDraggingToOtherWall() {
+        configure(true);
+        BubbleLayout bubble = addBubble(0, 200);
+        addBubble(0, 300);
+
+        drag(bubble, service.getDisplayGeometry().getWidth(), 0);
+
+        assertEquals(2, getOverlayHosts().size());
+        assertTrue(windows.getMaxLayoutsPerFrame() <= 1);
+    }
+
+    @Test
+    public void shouldLeaveRoomForScaledTrashInLazyWindow() {
+        service.setLazyTrashWindow(true, BubblesService.DEFAULT_TRASH_WINDOW_IDLE_TIMEOUT_IN_MS, true);
+        configure(false);
+        BubbleTrashLayout trash = getTrash();
+
+        trash.updateWindowPosition();
+
+        int scaledSize = (int) Math.ceil(TRASH_SIZE * 1.3f);
+        assertTrue(trash.getPaddingLeft() * 2 + TRASH_SIZE >= scaledSize);
+        assertTrue(trash.getPaddingTop() * 2 + TRASH_SIZE >= scaledSize);
+        int displayWidth = service.getDisplayGeometry().getWidth();
+        assertEquals((displayWidth - TRASH_SIZE) / 2, trash.getViewParams().x + trash.getPaddingLeft());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void strictModeShouldRejectSecondLayoutInSameFrame() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+
+        bubble.getWindowManager().updateViewLayout(bubble, bubble.getViewParams());
+        bubble.getWindowManager().updateViewLayout(bubble, bubble.getViewParams());
+    }
+
+    @Test
+    public void strictModeShouldAllowOneLayoutPerFrame() {
+        configure(false);
+        BubbleLayout bubble = addBubble(0, 200);
+
+        bubble.getWindowManager().updateViewLayout(bubble, bubble.getViewParams());
+        frames.advanceFrame();
+        bubble.getWindowManager().updateViewLayout(bubble, bubble.getViewParams());
+
+        assertEquals(2, windows.getLayoutCount(bubble));
+    }
+
+    private void configure(boolean singleWindowMode) {
+        service.setSingleWindowMode(singleWindowMode);
+        service.setMetricsEnabled(true, null);
+        service.setStrictModeEnabled(true);
+        service.addTrash(android.R.layout.simple_list_item_1);
+        ShadowLooper.runUiThreadTasks();
+        getTrash().getChildAt(0).setLayoutParams(new FrameLayout.LayoutParams(TRASH_SIZE, TRASH_SIZE,
+                Gravity.CENTER_HORIZONTAL | Gravity.BOTTOM));
+    }
+
+    private BubbleLayout addBubble(int x, int y) {
+        BubbleLayout bubble = new BubbleLayout(service);
+        bubble.addView(new View(service), new FrameLayout.LayoutParams(BUBBLE_SIZE, BUBBLE_SIZE));
+        service.addBubble(bubble, x, y);
+        ShadowLooper.runUiThreadTasks();
+        frames.runUntilIdle();
+        windows.reset();
+        return bubble;
+    }
+
+    private void drag(BubbleLayout bubble, float deltaX, float deltaY) {
+        GestureDriver gesture = new GestureDriver(bubble, frames);
+        float x = bubble.getViewParams().x + (BUBBLE_SIZE / 2);
+        float y = bubble.getViewParams().y + (BUBBLE_SIZE / 2);
+        gesture.down(x, y);
+        frames.advanceFrame();
+        gesture.moveBy(deltaX, deltaY, 30, 2);
+        gesture.up();
+        frames.runUntilIdle();
+    }
+
+    private BubbleTrashLayout getTrash() {
+        for (View window : windows.getWindows()) {
+            if (window instanceof BubbleTrashLayout) {
+                return (BubbleTrashLayout) window;
+            }
+        }
+        return null;
+    }
+
+    private List<View> getOverlayHosts() {
+        List<View> hosts = new ArrayList<>();
+        for (View window : windows.getWindows()) {
+            if (!(window instanceof BubbleTrashLayout)) {
+                hosts.add(window);
+            }
+        }
+        return hosts;
+    }
+
+    private void fling(BubbleLayout bubble, float deltaX, float deltaY) {
+        GestureDriver gesture = new GestureDriver(bubble, frames);
+        float x = bubble.getViewParams().x + (BUBBLE_SIZE / 2);
+        float y = bubble.getViewParams().y + (BUBBLE_SIZE / 2);
+        gesture.down(x, y);
+        frames.advanceFrame();
+        gesture.fling(deltaX, deltaY, 4);
+        frames.runUntilIdle();
+    }
+
+    private void dragToTrash(BubbleLayout bubble) {
+        GestureDriver gesture = startDrag(bubble);
+        moveToTrash(bubble, gesture);
+        gesture.up();
+        ShadowLooper.runUiThreadTasks();
+        frames.runUntilIdle();
+    }
+
+    private GestureDriver startDrag(BubbleLayout bubble) {
+        GestureDriver gesture = new GestureDriver(bubble, frames);
+        float x = bubble.getViewParams().x + (BUBBLE_SIZE / 2);
+        float y = bubble.getViewParams().y + (BUBBLE_SIZE / 2);
+        gesture.down(x, y);
+        frames.advanceFrame();
+        gesture.moveBy(BUBBLE_SIZE, 0, 4, 2);
+        ShadowLooper.runUiThreadTasks();
+        return gesture;
+    }
+
+    private void moveToTrash(BubbleLayout bubble, GestureDriver gesture) {
+        float deltaX = getTrashCenterX() - (bubble.getViewParams().x + (BUBBLE_SIZE / 2));
+        float deltaY = getTrashCenterY() - (bubble.getViewParams().y + (BUBBLE_SIZE / 2));
+        gesture.moveBy(deltaX, deltaY, 20, 2);
+    }
+
+    private int getTrashCenterX() {
+        BubbleTrashLayout trash = getTrash();
+        View content = trash.getChildAt(0);
+        return trash.getViewParams().x + content.getLeft() + (content.getWidth() / 2);
+    }
+
+    private int getTrashCenterY() {
+        BubbleTrashLayout trash = getTrash();
+        View content = trash.getChildAt(0);
+        return trash.getViewParams().y + content.getTop() + (content.getHeight() / 2);
+    }
+
+    private long getInflatedAnimatorCount() {
+        return service.getMetrics().getAnimatorInflationDuration().getCount();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BubblesTouchPredictorTest {
+    private static final float MAX_DISTANCE = 200f;
+    private static final float DELTA = 0.01f;
+
+    // x, y, event time in ms
+    private static final float[][] STEADY_DRAG = {
+            { 100, 300, 1000 }, { 116, 304, 1008 }, { 132, 308, 1016 }, { 148, 312, 1024 }, { 164, 316, 1032 }
+    };
+    private static final float[][] REVERSAL = {
+            { 100, 300, 1000 }, { 130, 300, 1008 }, { 150, 300, 1016 }, { 140, 300, 1024 }
+    };
+    private static final float[][] SLOW_DRAG = {
+            { 100, 300, 1000 }, { 101, 300, 1008 }, { 102, 300, 1016 }, { 103, 300, 1024 }
+    };
+    private static final float[][] STALE_DRAG = {
+            { 100, 300, 1000 }, { 116, 300, 1008 }, { 132, 300, 1100 }, { 148, 300, 1108 }
+    };
+    private static final float[][] FAST_DRAG = {
+            { 100, 300, 1000 }, { 200, 300, 1008 }, { 300, 300, 1016 }, { 400, 300, 1024 }
+    };
+
+    @Test
+    public void shouldPredictOneFrameAheadOnSteadyDrag() {
+        BubblesTouchPredictor predictor = replay(STEADY_DRAG);
+
+        assertTrue(predictor.predict());
+        float frameInterval = 1000f / 60f;
+        assertEquals(164 + 2f * frameInterval, predictor.getPredictedX(), DELTA);
+        assertEquals(316 + 0.5f * frameInterval, predictor.getPredictedY(), DELTA);
+    }
+
+    @Test
+    public void shouldDeriveHorizonFromRefreshRate() {
+        BubblesTouchPredictor predictor = replay(STEADY_DRAG);
+        predictor.setRefreshRate(120f);
+
+        assertEquals(1000f / 120f, predictor.getPredictionHorizon(), DELTA);
+        assertTrue(predictor.predict());
+        assertEquals(164 + 2f * (1000f / 120f), predictor.getPredictedX(), DELTA);
+    }
+
+    @Test
+    public void shouldIgnoreInvalidRefreshRate() {
+        BubblesTouchPredictor predictor = new BubblesTouchPredictor(MAX_DISTANCE);
+        predictor.setRefreshRate(0);
+
+        assertEquals(1000f / 60f, predictor.getPredictionHorizon(), DELTA);
+    }
+
+    @Test
+    public void shouldLimitPredictionDistance() {
+        BubblesTouchPredictor predictor = replay(FAST_DRAG);
+
+        assertTrue(predictor.predict());
+        assertEquals(400 + MAX_DISTANCE, predictor.getPredictedX(), DELTA);
+        assertEquals(300, predictor.getPredictedY(), DELTA);
+    }
+
+    @Test
+    public void shouldNotPredictOnDirectionReversal() {
+        assertFalse(replay(REVERSAL).predict());
+    }
+
+    @Test
+    public void shouldNotPredictSlowMovement() {
+        assertFalse(replay(SLOW_DRAG).predict());
+    }
+
+    @Test
+    public void shouldNotPredictFromStaleSamples() {
+        assertFalse(replay(STALE_DRAG).predict());
+    }
+
+    @Test
+    public void shouldNotPredictWithFewSamples() {
+        BubblesTouchPredictor predictor = new BubblesTouchPredictor(MAX_DISTANCE);
+        predictor.addSample(100, 300, 1000);
+        predictor.addSample(116, 300, 1008);
+
+        assertFalse(predictor.predict());
+    }
+
+    @Test
+    public void shouldReplaceSampleWithSameTime() {
+        BubblesTouchPredictor predictor = new BubblesTouchPredictor(MAX_DISTANCE);
+        predictor.addSample(100, 300, 1000);
+        predictor.addSample(116, 300, 1008);
+        predictor.addSample(120, 300, 1008);
+
+        assertFalse(predictor.predict());
+    }
+
+    @Test
+    public void shouldForgetSamplesOnReset() {
+        BubblesTouchPredictor predictor = replay(STEADY_DRAG);
+        predictor.reset();
+
+        assertFalse(predictor.predict());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveMaxDistance() {
+        new BubblesTouchPredictor(0);
+    }
+
+    private static BubblesTouchPredictor replay(float[][] trace) {
+        BubblesTouchPredictor predictor = new BubblesTouchPredictor(MAX_DISTANCE);
+        for (float[] sample : trace) {
+            predictor.addSample(sample[0], sample[1], (long) sample[2]);
+        }
+        return predictor;
+    }
+}
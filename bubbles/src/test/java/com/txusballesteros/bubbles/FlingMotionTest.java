@@ -0,0 +1,97 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlingMotionTest {
+    private static final long START_TIME = 1000000000L;
+    private static final long MILLISECOND = 1000000L;
+    private static final float DELTA = 0.01f;
+
+    @Test
+    public void shouldPredictFinalPositionFromVelocityAndFriction() {
+        FlingMotion motion = new FlingMotion();
+        motion.start(200, 4200, START_TIME);
+
+        assertEquals(200 + (4200 / FlingMotion.DEFAULT_FRICTION), motion.getFinalPosition(), DELTA);
+    }
+
+    @Test
+    public void shouldStartAtInitialPositionAndVelocity() {
+        FlingMotion motion = new FlingMotion();
+        motion.start(200, -3000, START_TIME);
+
+        assertEquals(200, motion.getPosition(START_TIME), DELTA);
+        assertEquals(-3000, motion.getVelocity(START_TIME), DELTA);
+    }
+
+    @Test
+    public void shouldDecelerateTowardsFinalPosition() {
+        FlingMotion motion = new FlingMotion();
+        motion.start(0, 3000, START_TIME);
+        float previousPosition = motion.getPosition(START_TIME);
+        float previousVelocity = motion.getVelocity(START_TIME);
+
+        for (long time = START_TIME + MILLISECOND; time < START_TIME + 2000 * MILLISECOND; time += MILLISECOND) {
+            float position = motion.getPosition(time);
+            float velocity = motion.getVelocity(time);
+            assertTrue(position >= previousPosition);
+            assertTrue(position <= motion.getFinalPosition());
+            assertTrue(velocity <= previousVelocity);
+            previousPosition = position;
+            previousVelocity = velocity;
+        }
+    }
+
+    @Test
+    public void shouldFinishAfterItsDuration() {
+        FlingMotion motion = new FlingMotion();
+        motion.start(0, 3000, START_TIME);
+        long endTime = START_TIME + motion.getDurationNanos();
+
+        assertFalse(motion.isFinished(START_TIME));
+        assertTrue(motion.isFinished(endTime + MILLISECOND));
+        assertEquals(motion.getFinalPosition(), motion.getPosition(endTime), 1f);
+    }
+
+    @Test
+    public void shouldHaveNoDurationWithoutVelocity() {
+        FlingMotion motion = new FlingMotion();
+        motion.start(100, 0.5f, START_TIME);
+
+        assertEquals(0, motion.getDurationNanos());
+        assertTrue(motion.isFinished(START_TIME));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveFriction() {
+        new FlingMotion(0);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+final class GestureDriver {
+    private final View target;
+    private final ManualFrameScheduler frames;
+    private long downTime;
+    private float x;
+    private float y;
+
+    GestureDriver(View target, ManualFrameScheduler frames) {
+        this.target = target;
+        this.frames = frames;
+    }
+
+    void down(float x, float y) {
+        this.x = x;
+        this.y = y;
+        downTime = frames.getFrameTimeMillis();
+        dispatch(MotionEvent.ACTION_DOWN, downTime);
+    }
+
+    void moveBy(float deltaX, float deltaY, int frameCount, int eventsPerFrame) {
+        int eventCount = frameCount * eventsPerFrame;
+        float stepX = deltaX / eventCount;
+        float stepY = deltaY / eventCount;
+        long eventInterval = (ManualFrameScheduler.FRAME_INTERVAL_IN_NANOS / 1000000L) / eventsPerFrame;
+        for (int frame = 0; frame < frameCount; frame++) {
+            for (int event = 1; event <= eventsPerFrame; event++) {
+                x += stepX;
+                y += stepY;
+                dispatch(MotionEvent.ACTION_MOVE, frames.getFrameTimeMillis() + (event * eventInterval));
+            }
+            frames.advanceFrame();
+        }
+    }
+
+    void up() {
+        dispatch(MotionEvent.ACTION_UP, frames.getFrameTimeMillis() + 1);
+    }
+
+    void fling(float deltaX, float deltaY, int frameCount) {
+        moveBy(deltaX, deltaY, frameCount, 2);
+        up();
+    }
+
+    void tap(float x, float y) {
+        down(x, y);
+        frames.advanceFrame();
+        up();
+    }
+
+    private void dispatch(int action, long eventTime) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        try {
+            target.dispatchTouchEvent(event);
+        } finally {
+            event.recycle();
+        }
+    }
+}
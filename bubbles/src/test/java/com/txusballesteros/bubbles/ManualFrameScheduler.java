@@ -0,0 +1,80 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+final class ManualFrameScheduler implements BubblesFrameClock.FrameScheduler {
+    static final long FRAME_INTERVAL_IN_NANOS = 16666667L;
+    private static final long NANOS_PER_MILLISECOND = 1000000L;
+    private static final int MAX_IDLE_FRAMES = 600;
+    private BubblesFrameClock frameClock;
+    private boolean scheduled = false;
+    private long frameTimeNanos = 1000000000L;
+    private long frameIndex = 0;
+
+    BubblesFrameClock createFrameClock() {
+        frameClock = new BubblesFrameClock(this);
+        return frameClock;
+    }
+
+    @Override
+    public void schedule() {
+        scheduled = true;
+    }
+
+    @Override
+    public void cancel() {
+        scheduled = false;
+    }
+
+    boolean isScheduled() {
+        return scheduled;
+    }
+
+    long getFrameIndex() {
+        return frameIndex;
+    }
+
+    long getFrameTimeMillis() {
+        return frameTimeNanos / NANOS_PER_MILLISECOND;
+    }
+
+    void advanceFrame() {
+        frameTimeNanos += FRAME_INTERVAL_IN_NANOS;
+        if (scheduled) {
+            scheduled = false;
+            frameClock.doFrame(frameTimeNanos);
+        }
+        frameIndex++;
+    }
+
+    void runUntilIdle() {
+        for (int frame = 0; frame < MAX_IDLE_FRAMES && scheduled; frame++) {
+            advanceFrame();
+        }
+        if (scheduled) {
+            throw new IllegalStateException("Frame clock still running after " + MAX_IDLE_FRAMES + " frames");
+        }
+    }
+}
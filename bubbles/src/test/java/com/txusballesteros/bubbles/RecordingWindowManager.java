@@ -0,0 +1,147 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import android.graphics.Point;
+import android.view.Display;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class RecordingWindowManager implements WindowManager {
+    private final WindowManager windowManager;
+    private final ManualFrameScheduler frames;
+    private final List<View> windows = new ArrayList<>();
+    private final Map<View, List<Long>> layoutFrames = new HashMap<>();
+
+    RecordingWindowManager(WindowManager windowManager, ManualFrameScheduler frames) {
+        this.windowManager = windowManager;
+        this.frames = frames;
+    }
+
+    @Override
+    public Display getDefaultDisplay() {
+        return windowManager.getDefaultDisplay();
+    }
+
+    @Override
+    public void addView(View view, ViewGroup.LayoutParams params) {
+        windowManager.addView(view, params);
+        windows.add(view);
+        layOut(view, params);
+    }
+
+    @Override
+    public void updateViewLayout(View view, ViewGroup.LayoutParams params) {
+        windowManager.updateViewLayout(view, params);
+        layOut(view, params);
+        List<Long> frameIndexes = layoutFrames.get(view);
+        if (frameIndexes == null) {
+            frameIndexes = new ArrayList<>();
+            layoutFrames.put(view, frameIndexes);
+        }
+        frameIndexes.add(frames.getFrameIndex());
+    }
+
+    @Override
+    public void removeView(View view) {
+        windowManager.removeView(view);
+        windows.remove(view);
+    }
+
+    @Override
+    public void removeViewImmediate(View view) {
+        windowManager.removeViewImmediate(view);
+        windows.remove(view);
+    }
+
+    // Robolectric's window session reports an empty frame, so lay windows out
+    // at the size a real window would get them.
+    private void layOut(View view, ViewGroup.LayoutParams params) {
+        Point size = new Point();
+        getDefaultDisplay().getSize(size);
+        view.measure(getMeasureSpec(size.x, params.width), getMeasureSpec(size.y, params.height));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    private static int getMeasureSpec(int displaySize, int windowSize) {
+        if (windowSize == ViewGroup.LayoutParams.MATCH_PARENT) {
+            return View.MeasureSpec.makeMeasureSpec(displaySize, View.MeasureSpec.EXACTLY);
+        } else if (windowSize == ViewGroup.LayoutParams.WRAP_CONTENT) {
+            return View.MeasureSpec.makeMeasureSpec(displaySize, View.MeasureSpec.AT_MOST);
+        }
+        return View.MeasureSpec.makeMeasureSpec(windowSize, View.MeasureSpec.EXACTLY);
+    }
+
+    List<View> getWindows() {
+        return windows;
+    }
+
+    int getLayoutCount(View view) {
+        List<Long> frameIndexes = layoutFrames.get(view);
+        return frameIndexes != null ? frameIndexes.size() : 0;
+    }
+
+    int getLayoutCount() {
+        int count = 0;
+        for (List<Long> frameIndexes : layoutFrames.values()) {
+            count += frameIndexes.size();
+        }
+        return count;
+    }
+
+    int getMaxLayoutsPerFrame(View view) {
+        List<Long> frameIndexes = layoutFrames.get(view);
+        if (frameIndexes == null) {
+            return 0;
+        }
+        int max = 0;
+        int count = 0;
+        long frame = -1;
+        for (long frameIndex : frameIndexes) {
+            count = frameIndex == frame ? count + 1 : 1;
+            frame = frameIndex;
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    int getMaxLayoutsPerFrame() {
+        int max = 0;
+        for (View view : layoutFrames.keySet()) {
+            max = Math.max(max, getMaxLayoutsPerFrame(view));
+        }
+        return max;
+    }
+
+    void reset() {
+        layoutFrames.clear();
+    }
+}
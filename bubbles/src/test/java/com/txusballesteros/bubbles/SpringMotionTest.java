@@ -0,0 +1,148 @@
+/*
+ * Copyright Txus Ballesteros 2015 (@txusballesteros)
+ *
+ * This file is part of some open source application.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Contact: Txus Ballesteros <txus.ballesteros@gmail.com>
+ */
+package com.txusballesteros.bubbles;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpringMotionTest {
+    private static final long START_TIME = 1000000000L;
+    private static final long MILLISECOND = 1000000L;
+    private static final float DELTA = 0.01f;
+
+    @Test
+    public void shouldStartAtInitialPositionAndVelocity() {
+        SpringMotion motion = new SpringMotion();
+        motion.start(100, 500, 250, START_TIME);
+
+        assertEquals(100, motion.getPosition(START_TIME), DELTA);
+        assertEquals(250, motion.getVelocity(START_TIME), DELTA);
+        assertFalse(motion.isFinished(START_TIME));
+    }
+
+    @Test
+    public void shouldSettleOnTarget() {
+        SpringMotion motion = new SpringMotion();
+        motion.start(100, 500, 0, START_TIME);
+        long settledTime = START_TIME + 2000 * MILLISECOND;
+
+        assertEquals(500, motion.getPosition(settledTime), 0.5f);
+        assertTrue(motion.isFinished(settledTime));
+    }
+
+    @Test
+    public void shouldNotOvershootWhenCriticallyDamped() {
+        SpringMotion motion = new SpringMotion();
+        motion.start(0, 1000, 0, START_TIME);
+
+        for (long time = START_TIME; time < START_TIME + 1000 * MILLISECOND; time += MILLISECOND) {
+            assertTrue(motion.getPosition(time) <= 1000 + DELTA);
+        }
+    }
+
+    @Test
+    public void shouldOvershootWhenUnderdamped() {
+        SpringMotion motion = new SpringMotion(SpringMotion.DEFAULT_STIFFNESS, 0.3f);
+        motion.start(0, 1000, 0, START_TIME);
+        float maxPosition = 0;
+
+        for (long time = START_TIME; time < START_TIME + 1000 * MILLISECOND; time += MILLISECOND) {
+            maxPosition = Math.max(maxPosition, motion.getPosition(time));
+        }
+
+        assertTrue(maxPosition > 1000);
+    }
+
+    @Test
+    public void shouldReportVelocityMatchingPositionChange() {
+        float[] dampingRatios = { 0.5f, 1f, 1.5f };
+        for (float dampingRatio : dampingRatios) {
+            SpringMotion motion = new SpringMotion(SpringMotion.DEFAULT_STIFFNESS, dampingRatio);
+            motion.start(0, 300, 1200, START_TIME);
+            long time = START_TIME + 40 * MILLISECOND;
+            long step = MILLISECOND / 10;
+            float expectedVelocity = (motion.getPosition(time + step) - motion.getPosition(time - step))
+                    / (2 * step / 1000000000f);
+
+            assertEquals(expectedVelocity, motion.getVelocity(time), Math.abs(expectedVelocity) * 0.02f + 1f);
+        }
+    }
+
+    @Test
+    public void shouldOvershootWhenReleasedFastNearTarget() {
+        SpringMotion motion = new SpringMotion();
+        motion.start(950, 1000, 5000, START_TIME);
+        float maxPosition = 0;
+
+        for (long time = START_TIME; time < START_TIME + 1000 * MILLISECOND; time += MILLISECOND) {
+            maxPosition = Math.max(maxPosition, motion.getPosition(time));
+        }
+
+        assertTrue(maxPosition > 1030);
+    }
+
+    @Test
+    public void shouldNotOvershootWhenVelocityIsLimited() {
+        float[] dampingRatios = { 1f, 1.5f };
+        for (float dampingRatio : dampingRatios) {
+            SpringMotion motion = new SpringMotion(SpringMotion.DEFAULT_STIFFNESS, dampingRatio);
+            motion.startWithoutOvershoot(950, 1000, 5000, START_TIME);
+
+            for (long time = START_TIME; time < START_TIME + 1000 * MILLISECOND; time += MILLISECOND) {
+                assertTrue(motion.getPosition(time) <= 1000 + DELTA);
+            }
+            assertTrue(motion.isFinished(START_TIME + 2000 * MILLISECOND));
+        }
+    }
+
+    @Test
+    public void shouldKeepVelocityAwayFromTarget() {
+        SpringMotion motion = new SpringMotion();
+        motion.startWithoutOvershoot(950, 1000, -5000, START_TIME);
+
+        assertEquals(-5000, motion.getVelocity(START_TIME), DELTA);
+    }
+
+    @Test
+    public void shouldStayAtStartPositionBeforeStartTime() {
+        SpringMotion motion = new SpringMotion();
+        motion.start(100, 500, 0, START_TIME);
+
+        assertEquals(100, motion.getPosition(START_TIME - 100 * MILLISECOND), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveStiffness() {
+        new SpringMotion(0, SpringMotion.DEFAULT_DAMPING_RATIO);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeDampingRatio() {
+        new SpringMotion(SpringMotion.DEFAULT_STIFFNESS, -1);
+    }
+}